@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "3.4.3"
 	id("io.spring.dependency-management") version "1.1.7"
     id("com.diffplug.spotless") version "7.0.2"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "pl.edu.uj"
@@ -30,9 +31,14 @@ dependencies {
     implementation("org.liquibase:liquibase-core")
 
     implementation("org.apache.commons:commons-lang3:3.17.0")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("org.hdrhistogram:HdrHistogram:2.2.2")
 
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test")
+    testImplementation("org.springframework.boot:spring-boot-testcontainers")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
     testRuntimeOnly("com.h2database:h2")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 	compileOnly("org.projectlombok:lombok:1.18.36")
@@ -41,10 +47,93 @@ dependencies {
 	testAnnotationProcessor("org.projectlombok:lombok:1.18.36")
 }
 
+val loadtest by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+	runtimeClasspath += output + compileClasspath + sourceSets.main.get().runtimeClasspath
+}
+
+dependencies {
+	"loadtestRuntimeOnly"("com.h2database:h2")
+}
+
+tasks.register<JavaExec>("loadTest") {
+	description = "Replays the workflows/*.http scenarios against the app on an embedded database."
+	group = "verification"
+	classpath = loadtest.runtimeClasspath
+	mainClass = "pl.edu.uj.notes.loadtest.LoadTest"
+	args(file("workflows").absolutePath)
+	workingDir = projectDir
+	System.getProperties()
+		.filterKeys { it.toString().startsWith("loadtest.") }
+		.forEach { (key, value) -> systemProperty(key.toString(), value) }
+}
+
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
 
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark", "query-plans")
+	}
+}
+
+val queryPlanTest by tasks.registering(Test::class) {
+	description = "Runs EXPLAIN on every repository query against a synthetic PostgreSQL dataset."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("query-plans")
+	}
+	// The suite disables itself without Docker, which would let check pass without checking plans.
+	var plansChecked = false
+	afterSuite(KotlinClosure2<TestDescriptor, TestResult, Unit>({ suite, result ->
+		if (suite.parent == null) {
+			plansChecked = result.successfulTestCount + result.failedTestCount > 0
+		}
+	}))
+	doLast {
+		if (!plansChecked) {
+			val message = "queryPlanTest ran no tests, most likely because Docker is unavailable"
+			if (System.getenv("CI") != null) {
+				throw GradleException(message)
+			}
+			logger.warn("WARNING: $message. Query plans were NOT checked.")
+		}
+	}
+}
+
+tasks.check {
+	dependsOn(queryPlanTest)
+}
+
+tasks.register<Test>("benchmark") {
+	description = "Compares platform and virtual thread request handling at high concurrency."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	outputs.upToDateWhen { false }
+	testLogging.showStandardStreams = true
+	maxHeapSize = "2g"
+	System.getProperties()
+		.filterKeys { it.toString().startsWith("benchmark.") }
+		.forEach { (key, value) -> systemProperty(key.toString(), value) }
+}
+
+jmh {
+	jmhVersion = "1.37"
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+	resultFormat = "JSON"
+	resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+	providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
 spotless {
     java {
         googleJavaFormat()
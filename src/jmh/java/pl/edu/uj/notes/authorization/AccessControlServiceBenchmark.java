@@ -0,0 +1,60 @@
+package pl.edu.uj.notes.authorization;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pl.edu.uj.notes.note.Note;
+import pl.edu.uj.notes.user.UserEntity;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccessControlServiceBenchmark {
+
+  @Param({"OWNER", "STRANGER", "ADMIN"})
+  String subject;
+
+  @Param({"READ", "WRITE"})
+  Action action;
+
+  AccessControlService accessControlService;
+  Note note;
+  UserEntity owner;
+
+  @Setup
+  public void setUp() {
+    owner = user("owner", false);
+    UserEntity currentUser =
+        switch (subject) {
+          case "OWNER" -> owner;
+          case "ADMIN" -> user("admin", true);
+          default -> user("stranger", false);
+        };
+    accessControlService = AuthorizationBenchmarks.accessControl(currentUser);
+    note = new Note("Benchmark", owner);
+  }
+
+  @Benchmark
+  public boolean noteAccess() {
+    return accessControlService.userHasAccessTo(note, action);
+  }
+
+  @Benchmark
+  public boolean userAccess() {
+    return accessControlService.userHasAccessTo(owner, action);
+  }
+
+  private static UserEntity user(String username, boolean admin) {
+    UserEntity user = new UserEntity(username, "password");
+    user.setId(UUID.randomUUID().toString());
+    user.setAdmin(admin);
+    return user;
+  }
+}
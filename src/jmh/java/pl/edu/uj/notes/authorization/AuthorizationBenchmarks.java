@@ -0,0 +1,16 @@
+package pl.edu.uj.notes.authorization;
+
+import pl.edu.uj.notes.user.UserEntity;
+
+/** Builds the production {@link AccessControlService} around a fixed current user. */
+public final class AuthorizationBenchmarks {
+
+  private AuthorizationBenchmarks() {}
+
+  public static AccessControlService accessControl(UserEntity currentUser) {
+    return new AccessControlService(
+        () -> currentUser,
+        new UserEntityAuthorizationStrategy(),
+        new NoteAccessAuthorizationStrategy());
+  }
+}
@@ -0,0 +1,37 @@
+package pl.edu.uj.notes.note;
+
+import java.util.Comparator;
+import java.util.List;
+
+/** {@link NoteSearchEngine} over a fixed list of hits, standing in for the search query. */
+class InMemoryNoteSearchEngine extends NoteSearchEngine {
+
+  private static final Comparator<NoteSearchHit> ORDER =
+      Comparator.comparing((NoteSearchHit hit) -> hit.note().getUpdatedAt())
+          .thenComparing(hit -> hit.note().getId());
+
+  private final List<NoteSearchHit> hits;
+
+  InMemoryNoteSearchEngine(List<NoteSearchHit> hits) {
+    super(null, null, null);
+    this.hits = hits.stream().sorted(ORDER.reversed()).toList();
+  }
+
+  @Override
+  List<NoteSearchHit> search(NoteSearchCriteria criteria) {
+    return hits.stream()
+        .filter(hit -> hit.note().isActive() && hit.note().isImportant() == criteria.important())
+        .filter(
+            hit ->
+                criteria.ownerId() == null
+                    || criteria.ownerId().equals(hit.note().getOwner().getId()))
+        .filter(hit -> criteria.after() == null || isAfter(hit, criteria.after()))
+        .limit(criteria.limit())
+        .toList();
+  }
+
+  private static boolean isAfter(NoteSearchHit hit, NoteCursor cursor) {
+    int byTime = hit.note().getUpdatedAt().compareTo(cursor.updatedAt());
+    return byTime < 0 || (byTime == 0 && hit.note().getId().compareTo(cursor.id()) < 0);
+  }
+}
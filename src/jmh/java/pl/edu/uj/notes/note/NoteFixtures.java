@@ -0,0 +1,58 @@
+package pl.edu.uj.notes.note;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import pl.edu.uj.notes.user.UserEntity;
+
+/** Detached notes, search documents and snapshots for benchmarks. */
+final class NoteFixtures {
+
+  static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+  private NoteFixtures() {}
+
+  static UserEntity user(String username, boolean admin) {
+    UserEntity user = new UserEntity(username, "password");
+    user.setId(UUID.randomUUID().toString());
+    user.setAdmin(admin);
+    return user;
+  }
+
+  static String content(int size) {
+    StringBuilder content = new StringBuilder(size);
+    while (content.length() < size) {
+      content.append("Lorem ipsum dolor sit amet, \"consectetur\" adipiscing elit.\n");
+    }
+    return content.substring(0, size);
+  }
+
+  static List<NoteSearchHit> hits(UserEntity owner, int count, int contentSize) {
+    String content = content(contentSize);
+    List<NoteSearchHit> hits = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Note note = new Note("Note " + i, owner);
+      note.setCreatedAt(START.plusSeconds(i));
+      note.setUpdatedAt(START.plusSeconds(i));
+      note.setVersion(0L);
+
+      NoteSearchDocument document = new NoteSearchDocument(note, content);
+      document.setUpdatedAt(START.plusSeconds(i));
+      hits.add(new NoteSearchHit(note, document));
+    }
+    return hits;
+  }
+
+  static List<SnapshotDTO> snapshots(int count, int contentSize) {
+    String content = content(contentSize);
+    String noteId = UUID.randomUUID().toString();
+    List<SnapshotDTO> snapshots = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      snapshots.add(
+          new SnapshotDTO(
+              UUID.randomUUID().toString(), noteId, content, START.plusSeconds(i).toEpochMilli()));
+    }
+    return snapshots;
+  }
+}
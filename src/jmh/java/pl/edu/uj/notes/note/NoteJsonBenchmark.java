@@ -0,0 +1,52 @@
+package pl.edu.uj.notes.note;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Serialization of note and snapshot lists with the same Jackson setup the web layer uses. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteJsonBenchmark {
+
+  @Param({"50", "500"})
+  int count;
+
+  @Param({"256", "16384"})
+  int contentSize;
+
+  ObjectMapper objectMapper;
+  List<NoteDTO> notes;
+  List<SnapshotDTO> snapshots;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    notes =
+        NoteFixtures.hits(NoteFixtures.user("owner", false), count, contentSize).stream()
+            .map(hit -> new NoteDTO(hit.note(), hit.document()))
+            .toList();
+    snapshots = NoteFixtures.snapshots(count, contentSize);
+  }
+
+  @Benchmark
+  public byte[] serializeNotes() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(notes);
+  }
+
+  @Benchmark
+  public byte[] serializeSnapshots() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(snapshots);
+  }
+}
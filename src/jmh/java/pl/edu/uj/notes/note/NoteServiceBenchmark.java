@@ -0,0 +1,71 @@
+package pl.edu.uj.notes.note;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.edu.uj.notes.authorization.AccessControlService;
+import pl.edu.uj.notes.authorization.AuthorizationBenchmarks;
+import pl.edu.uj.notes.user.UserEntity;
+
+/**
+ * {@link NoteService#getAllNotes} over an in-memory search engine, so only the service's own work
+ * (authorization filtering, DTO mapping and cursor encoding) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteServiceBenchmark {
+
+  @Param({"100", "1000"})
+  int noteCount;
+
+  @Param({"256", "16384"})
+  int contentSize;
+
+  @Param({"50", "500"})
+  int pageSize;
+
+  NoteService noteService;
+  List<NoteSearchHit> hits;
+  NotePageRequest pageRequest;
+
+  @Setup
+  public void setUp() {
+    UserEntity owner = NoteFixtures.user("owner", false);
+    hits = NoteFixtures.hits(owner, noteCount, contentSize);
+    AccessControlService accessControlService = AuthorizationBenchmarks.accessControl(owner);
+    noteService =
+        new NoteService(
+            () -> owner,
+            null,
+            null,
+            accessControlService,
+            null,
+            new InMemoryNoteSearchEngine(hits),
+            new NotePaginationProperties(pageSize, pageSize),
+            null,
+            null,
+            null);
+    pageRequest = NotePageRequest.firstPage();
+  }
+
+  @Benchmark
+  public NotePage getAllNotes() {
+    return noteService.getAllNotes(null, null, null, null, pageRequest);
+  }
+
+  @Benchmark
+  public void noteDTOConstruction(Blackhole blackhole) {
+    for (NoteSearchHit hit : hits) {
+      blackhole.consume(new NoteDTO(hit.note(), hit.document()));
+    }
+  }
+}
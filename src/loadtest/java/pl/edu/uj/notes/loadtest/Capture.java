@@ -0,0 +1,52 @@
+package pl.edu.uj.notes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@code client.global.set(name, expression)} response handler. The expressions used by the
+ * workflows are supported: {@code response.headers.valueOf("H")} optionally followed by {@code
+ * .split("/").pop()}, and {@code response.body} followed by a property and index path such as
+ * {@code [0].id}.
+ */
+record Capture(String variable, String expression) {
+
+  private static final Pattern HEADER =
+      Pattern.compile(
+          "response\\.headers\\.valueOf\\(\"([^\"]+)\"\\)"
+              + "(\\.split\\(\"/\"\\)\\.pop\\(\\))?");
+  private static final Pattern BODY = Pattern.compile("response\\.body((?:\\[\\d+]|\\.\\w+)*)");
+  private static final Pattern BODY_SEGMENT = Pattern.compile("\\[(\\d+)]|\\.(\\w+)");
+
+  Capture {
+    if (!HEADER.matcher(expression).matches() && !BODY.matcher(expression).matches()) {
+      throw new IllegalArgumentException("Unsupported response handler expression: " + expression);
+    }
+  }
+
+  String evaluate(HttpResponse<String> response, ObjectMapper objectMapper) throws Exception {
+    Matcher header = HEADER.matcher(expression);
+    if (header.matches()) {
+      String value = response.headers().firstValue(header.group(1)).orElse(null);
+      if (value == null || header.group(2) == null) {
+        return value;
+      }
+      return value.substring(value.lastIndexOf('/') + 1);
+    }
+
+    Matcher body = BODY.matcher(expression);
+    body.matches();
+    JsonNode node = objectMapper.readTree(response.body());
+    Matcher segment = BODY_SEGMENT.matcher(body.group(1));
+    while (segment.find() && node != null) {
+      node =
+          segment.group(1) != null
+              ? node.get(Integer.parseInt(segment.group(1)))
+              : node.get(segment.group(2));
+    }
+    return node == null || node.isNull() ? null : node.asText();
+  }
+}
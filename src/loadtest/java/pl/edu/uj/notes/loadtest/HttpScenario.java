@@ -0,0 +1,5 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.util.List;
+
+record HttpScenario(String name, List<HttpStep> steps) {}
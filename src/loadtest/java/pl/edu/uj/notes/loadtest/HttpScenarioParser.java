@@ -0,0 +1,122 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the subset of the IntelliJ HTTP client format used in {@code workflows/}: requests
+ * separated by {@code ###} lines, a request line, headers, an optional body and an optional
+ * {@code > {% ... %}} response handler made of {@code client.global.set} calls. The host in the
+ * request line is dropped so the scenario can be replayed against any base URI.
+ */
+final class HttpScenarioParser {
+
+  private static final String SEPARATOR = "###";
+  private static final String HANDLER_START = "> {%";
+  private static final String HANDLER_END = "%}";
+  private static final Pattern SET_VARIABLE =
+      Pattern.compile("client\\.global\\.set\\(\\s*\"(\\w+)\"\\s*,\\s*(.+?)\\s*\\)\\s*;");
+
+  private HttpScenarioParser() {}
+
+  static HttpScenario parse(Path file) throws IOException {
+    String name = file.getFileName().toString().replaceFirst("\\.http$", "");
+    List<HttpStep> steps = new ArrayList<>();
+    List<String> block = new ArrayList<>();
+    String stepName = null;
+
+    for (String line : Files.readAllLines(file)) {
+      if (line.startsWith(SEPARATOR)) {
+        if (stepName != null) {
+          steps.add(parseStep(stepName, block));
+        }
+        stepName = line.substring(SEPARATOR.length()).trim();
+        block.clear();
+      } else if (stepName != null) {
+        block.add(line);
+      }
+    }
+    if (stepName != null) {
+      steps.add(parseStep(stepName, block));
+    }
+    return new HttpScenario(name, List.copyOf(steps));
+  }
+
+  private static HttpStep parseStep(String name, List<String> lines) {
+    int index = 0;
+    while (index < lines.size() && lines.get(index).isBlank()) {
+      index++;
+    }
+    if (index == lines.size()) {
+      throw new IllegalArgumentException("Request '" + name + "' has no request line");
+    }
+
+    String[] requestLine = lines.get(index++).trim().split("\\s+");
+    if (requestLine.length < 2) {
+      throw new IllegalArgumentException("Malformed request line in '" + name + "'");
+    }
+
+    Map<String, String> headers = new LinkedHashMap<>();
+    while (index < lines.size() && !lines.get(index).isBlank()) {
+      String header = lines.get(index++);
+      if (header.startsWith(HANDLER_START)) {
+        index--;
+        break;
+      }
+      int colon = header.indexOf(':');
+      if (colon < 0) {
+        throw new IllegalArgumentException("Malformed header '" + header + "' in '" + name + "'");
+      }
+      headers.put(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+    }
+
+    StringBuilder body = new StringBuilder();
+    StringBuilder handler = new StringBuilder();
+    boolean inHandler = false;
+    for (; index < lines.size(); index++) {
+      String line = lines.get(index);
+      if (!inHandler && line.startsWith(HANDLER_START)) {
+        inHandler = true;
+        line = line.substring(HANDLER_START.length());
+      }
+      if (inHandler) {
+        int end = line.indexOf(HANDLER_END);
+        handler.append(end < 0 ? line : line.substring(0, end)).append('\n');
+        inHandler = end < 0;
+      } else {
+        body.append(line).append('\n');
+      }
+    }
+
+    List<Capture> captures = new ArrayList<>();
+    Matcher matcher = SET_VARIABLE.matcher(handler);
+    while (matcher.find()) {
+      captures.add(new Capture(matcher.group(1), matcher.group(2)));
+    }
+
+    String content = body.toString().strip();
+    return new HttpStep(
+        name,
+        requestLine[0],
+        target(requestLine[1]),
+        headers,
+        content.isEmpty() ? null : content,
+        List.copyOf(captures));
+  }
+
+  private static String target(String url) {
+    String withoutScheme = url.replaceFirst("^https?://", "");
+    if (withoutScheme.startsWith("/")) {
+      return withoutScheme;
+    }
+    int path = withoutScheme.indexOf('/');
+    return path < 0 ? "/" : withoutScheme.substring(path);
+  }
+}
@@ -0,0 +1,13 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/** One request of an {@code .http} scenario, with {@code {{variable}}} placeholders unresolved. */
+record HttpStep(
+    String name,
+    String method,
+    String target,
+    Map<String, String> headers,
+    String body,
+    List<Capture> captures) {}
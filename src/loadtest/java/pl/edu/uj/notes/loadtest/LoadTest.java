@@ -0,0 +1,135 @@
+package pl.edu.uj.notes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.edu.uj.notes.NotesApplication;
+
+/**
+ * Starts the application in-process on an embedded database and replays the {@code .http}
+ * scenarios from the given directory with {@link LoadTestSettings#users()} concurrent virtual
+ * users. Prints per-step latency percentiles and error rates and writes them as JSON. Run with
+ * {@code ./gradlew loadTest}.
+ */
+public final class LoadTest {
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Path workflows = Path.of(args.length > 0 ? args[0] : "workflows");
+    LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    List<HttpScenario> scenarios = scenarios(workflows);
+    HttpScenario setup =
+        scenarios.stream()
+            .filter(scenario -> scenario.name().equals(settings.setup()))
+            .findFirst()
+            .orElseThrow(
+                () -> new IllegalArgumentException("No setup scenario " + settings.setup()));
+    List<HttpScenario> journeys = scenarios.stream().filter(scenario -> scenario != setup).toList();
+
+    try (ConfigurableApplicationContext context = start(settings);
+        HttpClient client =
+            HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      var runner =
+          new ScenarioRunner(
+              client, URI.create("http://localhost:" + port), settings.isolate(), scenarios);
+
+      long deadline = System.nanoTime() + settings.duration().toNanos();
+      try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (int user = 1; user <= settings.users(); user++) {
+          int id = user;
+          users.submit(
+              () -> {
+                Map<String, String> variables = new HashMap<>();
+                runner.run(setup, id, variables);
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                  for (HttpScenario journey : journeys) {
+                    runner.run(journey, id, variables);
+                  }
+                }
+              });
+        }
+      }
+
+      report(settings, runner.stats());
+    }
+  }
+
+  private static List<HttpScenario> scenarios(Path workflows) throws Exception {
+    List<HttpScenario> scenarios = new ArrayList<>();
+    try (Stream<Path> files = Files.list(workflows)) {
+      for (Path file : files.filter(f -> f.toString().endsWith(".http")).sorted().toList()) {
+        scenarios.add(HttpScenarioParser.parse(file));
+      }
+    }
+    return scenarios;
+  }
+
+  private static ConfigurableApplicationContext start(LoadTestSettings settings) {
+    return new SpringApplicationBuilder(NotesApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.main.banner-mode=off",
+            "notes.audit.file=" + settings.report().resolveSibling("audit.log"))
+        .run();
+  }
+
+  private static void report(LoadTestSettings settings, List<StepStats> stats) throws Exception {
+    System.out.printf(
+        "%nusers=%d duration=%s%n%-36s %-44s %8s %7s %6s %6s %6s %6s %9s %9s %9s %9s%n",
+        settings.users(),
+        settings.duration(),
+        "scenario",
+        "step",
+        "count",
+        "errors",
+        "2xx",
+        "3xx",
+        "4xx",
+        "5xx",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "max ms");
+
+    List<StepResult> results = stats.stream().map(StepResult::of).toList();
+    for (StepResult step : results) {
+      System.out.printf(
+          "%-36.36s %-44.44s %8d %6.2f%% %6d %6d %6d %6d %9.1f %9.1f %9.1f %9.1f%n",
+          step.scenario(),
+          step.step(),
+          step.count(),
+          step.errorRate() * 100,
+          step.status2xx(),
+          step.status3xx(),
+          step.status4xx(),
+          step.status5xx(),
+          step.p50Millis(),
+          step.p90Millis(),
+          step.p99Millis(),
+          step.maxMillis());
+    }
+
+    Files.createDirectories(settings.report().toAbsolutePath().getParent());
+    new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(
+            settings.report().toFile(),
+            new StepResult.Report(settings.users(), settings.duration().toString(), results));
+    System.out.println("Report written to " + settings.report().toAbsolutePath());
+  }
+}
@@ -0,0 +1,22 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test options read from {@code loadtest.*} system properties. Every virtual user runs the
+ * {@code setup} scenario once, then loops over the remaining scenarios until {@code duration}
+ * elapses. Occurrences of {@code isolate} in requests are suffixed with the virtual user number so
+ * users do not share an account.
+ */
+record LoadTestSettings(int users, Duration duration, String setup, String isolate, Path report) {
+
+  static LoadTestSettings fromSystemProperties() {
+    return new LoadTestSettings(
+        Integer.getInteger("loadtest.users", 50),
+        Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+        System.getProperty("loadtest.setup", "Create user & login"),
+        System.getProperty("loadtest.isolate", "workflow-user"),
+        Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/results.json")));
+  }
+}
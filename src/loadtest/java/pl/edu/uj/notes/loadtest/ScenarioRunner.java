@@ -0,0 +1,118 @@
+package pl.edu.uj.notes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Replays scenarios for one virtual user at a time and records every step in {@link StepStats}. */
+class ScenarioRunner {
+
+  private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+  private static final String BASIC = "Basic ";
+
+  private final HttpClient client;
+  private final URI baseUri;
+  private final String isolate;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<HttpStep, StepStats> stats = new IdentityHashMap<>();
+  private final List<StepStats> ordered = new ArrayList<>();
+
+  ScenarioRunner(HttpClient client, URI baseUri, String isolate, List<HttpScenario> scenarios) {
+    this.client = client;
+    this.baseUri = baseUri;
+    this.isolate = isolate;
+    for (HttpScenario scenario : scenarios) {
+      for (HttpStep step : scenario.steps()) {
+        StepStats stepStats = new StepStats(scenario.name(), step.name());
+        stats.put(step, stepStats);
+        ordered.add(stepStats);
+      }
+    }
+  }
+
+  List<StepStats> stats() {
+    return List.copyOf(ordered);
+  }
+
+  void run(HttpScenario scenario, int user, Map<String, String> variables) {
+    for (HttpStep step : scenario.steps()) {
+      StepStats stepStats = stats.get(step);
+      HttpRequest request = request(step, user, variables);
+      long start = System.nanoTime();
+      try {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        stepStats.record(response.statusCode(), System.nanoTime() - start);
+        if (response.statusCode() < 400) {
+          for (Capture capture : step.captures()) {
+            String value = capture.evaluate(response, objectMapper);
+            if (value != null) {
+              variables.put(capture.variable(), value);
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        stepStats.recordFailure(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private HttpRequest request(HttpStep step, int user, Map<String, String> variables) {
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder(baseUri.resolve(resolve(step.target(), user, variables)))
+            .timeout(Duration.ofSeconds(60));
+
+    step.headers()
+        .forEach(
+            (name, value) -> {
+              String resolved = resolve(value, user, variables);
+              if (name.equalsIgnoreCase("Authorization") && resolved.startsWith(BASIC)) {
+                resolved = basic(resolved.substring(BASIC.length()));
+              }
+              builder.header(name, resolved);
+            });
+
+    HttpRequest.BodyPublisher body =
+        step.body() == null
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(resolve(step.body(), user, variables));
+    return builder.method(step.method(), body).build();
+  }
+
+  /** The HTTP client format accepts {@code Basic user password}; encode it unless it already is. */
+  private static String basic(String credentials) {
+    String[] parts = credentials.trim().split("\\s+", 2);
+    if (parts.length < 2) {
+      return BASIC + credentials.trim();
+    }
+    String token = parts[0] + ":" + parts[1];
+    return BASIC + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String resolve(String template, int user, Map<String, String> variables) {
+    String isolated =
+        isolate == null || isolate.isEmpty()
+            ? template
+            : template.replace(isolate, isolate + "-" + user);
+    Matcher matcher = VARIABLE.matcher(isolated);
+    StringBuilder resolved = new StringBuilder();
+    while (matcher.find()) {
+      String value = variables.getOrDefault(matcher.group(1), matcher.group());
+      matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+    }
+    return matcher.appendTail(resolved).toString();
+  }
+}
@@ -0,0 +1,38 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.util.List;
+
+record StepResult(
+    String scenario,
+    String step,
+    long count,
+    long errors,
+    double errorRate,
+    long status2xx,
+    long status3xx,
+    long status4xx,
+    long status5xx,
+    double p50Millis,
+    double p90Millis,
+    double p99Millis,
+    double maxMillis) {
+
+  static StepResult of(StepStats stats) {
+    return new StepResult(
+        stats.scenario,
+        stats.step,
+        stats.count(),
+        stats.errors(),
+        stats.errorRate(),
+        stats.status(2),
+        stats.status(3),
+        stats.status(4),
+        stats.status(5),
+        stats.percentileMillis(50),
+        stats.percentileMillis(90),
+        stats.percentileMillis(99),
+        stats.maxMillis());
+  }
+
+  record Report(int users, String duration, List<StepResult> steps) {}
+}
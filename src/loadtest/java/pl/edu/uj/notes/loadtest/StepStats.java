@@ -0,0 +1,63 @@
+package pl.edu.uj.notes.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/** Latency and outcome counters for one scenario step, shared by all virtual users. */
+class StepStats {
+
+  private static final long MAX_LATENCY_MICROS = 60_000_000;
+
+  final String scenario;
+  final String step;
+  private final Histogram latencyMicros = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+  private final LongAdder[] statusClasses = new LongAdder[6];
+  private final LongAdder errors = new LongAdder();
+
+  StepStats(String scenario, String step) {
+    this.scenario = scenario;
+    this.step = step;
+    for (int i = 0; i < statusClasses.length; i++) {
+      statusClasses[i] = new LongAdder();
+    }
+  }
+
+  void record(int status, long durationNanos) {
+    latencyMicros.recordValue(Math.min(Math.max(durationNanos / 1_000, 1), MAX_LATENCY_MICROS));
+    statusClasses[Math.min(Math.max(status / 100, 0), 5)].increment();
+    if (status >= 500) {
+      errors.increment();
+    }
+  }
+
+  void recordFailure(long durationNanos) {
+    latencyMicros.recordValue(Math.min(Math.max(durationNanos / 1_000, 1), MAX_LATENCY_MICROS));
+    statusClasses[0].increment();
+    errors.increment();
+  }
+
+  long count() {
+    return latencyMicros.getTotalCount();
+  }
+
+  long errors() {
+    return errors.sum();
+  }
+
+  long status(int statusClass) {
+    return statusClasses[statusClass].sum();
+  }
+
+  double errorRate() {
+    return count() == 0 ? 0 : (double) errors() / count();
+  }
+
+  double percentileMillis(double percentile) {
+    return count() == 0 ? 0 : latencyMicros.getValueAtPercentile(percentile) / 1_000.0;
+  }
+
+  double maxMillis() {
+    return count() == 0 ? 0 : latencyMicros.getMaxValue() / 1_000.0;
+  }
+}
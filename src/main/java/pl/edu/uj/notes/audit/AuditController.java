@@ -0,0 +1,22 @@
+package pl.edu.uj.notes.audit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/audit")
+@RequiredArgsConstructor
+class AuditController {
+
+  private final AuditLog auditLog;
+
+  @GetMapping("/stats")
+  @PreAuthorize("hasRole('ADMIN')")
+  ResponseEntity<AuditLogStats> getStats() {
+    return ResponseEntity.ok(auditLog.stats());
+  }
+}
@@ -0,0 +1,158 @@
+package pl.edu.uj.notes.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serializes audit entries as JSON lines into a reusable character buffer and writes each batch
+ * with a single channel write. The file is rotated to {@code audit.log.1 .. audit.log.N} once it
+ * reaches the size limit. Used only from the audit writer thread.
+ */
+class AuditFileWriter implements Closeable {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Path file;
+  private final long maxFileSize;
+  private final int maxHistory;
+  private final StringBuilder batch = new StringBuilder(64 * 1024);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+  private FileChannel channel;
+  private long fileSize;
+  private long rotations;
+
+  AuditFileWriter(Path file, long maxFileSize, int maxHistory) throws IOException {
+    this.file = file;
+    this.maxFileSize = maxFileSize;
+    this.maxHistory = maxHistory;
+    open();
+  }
+
+  long rotations() {
+    return rotations;
+  }
+
+  void append(AuditRingBuffer.Entry entry) {
+    batch.append("{\"timestamp\":").append(entry.timestamp);
+    batch.append(",\"path\":\"");
+    escape(entry.method);
+    batch.append(' ');
+    escape(entry.path);
+    batch.append("\",\"duration\":").append(entry.durationNanos / 1_000_000);
+    batch.append(",\"statusCode\":").append(entry.status);
+    batch.append(",\"username\":");
+    if (entry.username == null) {
+      batch.append("null");
+    } else {
+      batch.append('"');
+      escape(entry.username);
+      batch.append('"');
+    }
+    batch.append("}\n");
+  }
+
+  /** Writes everything appended since the last flush and returns the number of bytes written. */
+  long flush() throws IOException {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      long written = write();
+      fileSize += written;
+      if (fileSize >= maxFileSize) {
+        rotate();
+      }
+      return written;
+    } finally {
+      batch.setLength(0);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private long write() throws IOException {
+    CharBuffer chars = CharBuffer.wrap(batch);
+    encoder.reset();
+    long written = 0;
+    while (true) {
+      CoderResult result = encoder.encode(chars, bytes, true);
+      if (result.isOverflow() && bytes.position() == 0) {
+        bytes = ByteBuffer.allocateDirect(bytes.capacity() * 2);
+        continue;
+      }
+      if (!result.isOverflow()) {
+        encoder.flush(bytes);
+      }
+
+      bytes.flip();
+      while (bytes.hasRemaining()) {
+        written += channel.write(bytes);
+      }
+      bytes.clear();
+
+      if (!result.isOverflow()) {
+        return written;
+      }
+    }
+  }
+
+  private void escape(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        batch.append('\\').append(c);
+      } else if (c < 0x20) {
+        batch.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+      } else {
+        batch.append(c);
+      }
+    }
+  }
+
+  private void open() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    fileSize = channel.size();
+  }
+
+  private void rotate() throws IOException {
+    channel.close();
+    for (int i = maxHistory - 1; i >= 1; i--) {
+      Path older = history(i);
+      if (Files.exists(older)) {
+        Files.move(older, history(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    if (maxHistory > 0) {
+      Files.move(file, history(1), StandardCopyOption.REPLACE_EXISTING);
+    } else {
+      Files.delete(file);
+    }
+    rotations++;
+    open();
+  }
+
+  private Path history(int index) {
+    return file.resolveSibling(file.getFileName() + "." + index);
+  }
+}
@@ -0,0 +1,156 @@
+package pl.edu.uj.notes.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pl.edu.uj.notes.audit.AuditLogProperties.OverflowPolicy;
+
+/**
+ * Request audit trail. Request threads only claim a slot in an {@link AuditRingBuffer}; a
+ * dedicated writer thread drains it in batches into an {@link AuditFileWriter}. When the ring is
+ * full the configured {@link OverflowPolicy} decides whether the event is dropped, sampled or
+ * waited for.
+ */
+@Slf4j
+@Component
+public class AuditLog implements SmartLifecycle {
+
+  private final AuditLogProperties properties;
+  private final AuditRingBuffer ring;
+  private final int sampleThreshold;
+  private final LongAdder published = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder sampledOut = new LongAdder();
+  private final LongAdder blocked = new LongAdder();
+  private volatile long written;
+  private volatile long bytesWritten;
+  private volatile long rotations;
+  private volatile long writeErrors;
+  private volatile boolean running;
+  private Thread writerThread;
+
+  AuditLog(AuditLogProperties properties) {
+    this.properties = properties;
+    this.ring = new AuditRingBuffer(properties.capacity());
+    this.sampleThreshold = (int) (ring.capacity() * properties.sampleThreshold());
+  }
+
+  public void record(
+      String method, String path, int status, long durationNanos, String username) {
+    if (!running) {
+      return;
+    }
+
+    OverflowPolicy policy = properties.overflowPolicy();
+    if (policy == OverflowPolicy.SAMPLE
+        && ring.size() >= sampleThreshold
+        && ThreadLocalRandom.current().nextInt(properties.sampleRate()) != 0) {
+      sampledOut.increment();
+      return;
+    }
+
+    long timestamp = System.currentTimeMillis();
+    if (ring.offer(timestamp, method, path, status, durationNanos, username)) {
+      published.increment();
+      return;
+    }
+
+    if (policy == OverflowPolicy.BLOCK) {
+      blocked.increment();
+      long deadline = System.nanoTime() + properties.blockTimeout().toNanos();
+      while (System.nanoTime() < deadline) {
+        LockSupport.parkNanos(50_000);
+        if (ring.offer(timestamp, method, path, status, durationNanos, username)) {
+          published.increment();
+          return;
+        }
+      }
+    }
+    dropped.increment();
+  }
+
+  public AuditLogStats stats() {
+    return new AuditLogStats(
+        properties.enabled(),
+        properties.overflowPolicy().name(),
+        ring.capacity(),
+        ring.size(),
+        published.sum(),
+        dropped.sum(),
+        sampledOut.sum(),
+        blocked.sum(),
+        written,
+        bytesWritten,
+        rotations,
+        writeErrors);
+  }
+
+  @Override
+  public void start() {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    AuditFileWriter writer;
+    try {
+      writer =
+          new AuditFileWriter(
+              properties.file(), properties.maxFileSize().toBytes(), properties.maxHistory());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open audit log " + properties.file(), e);
+    }
+
+    running = true;
+    writerThread = Thread.ofPlatform().name("audit-writer").daemon().start(() -> drain(writer));
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (writerThread != null) {
+      LockSupport.unpark(writerThread);
+      try {
+        writerThread.join(5_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writerThread = null;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void drain(AuditFileWriter writer) {
+    Consumer<AuditRingBuffer.Entry> append = writer::append;
+    long pollNanos = properties.pollInterval().toNanos();
+    try (writer) {
+      while (running || ring.size() > 0) {
+        int drained = ring.drain(append, properties.batchSize());
+        if (drained == 0) {
+          LockSupport.parkNanos(pollNanos);
+          continue;
+        }
+
+        try {
+          bytesWritten += writer.flush();
+          written += drained;
+          rotations = writer.rotations();
+        } catch (IOException e) {
+          writeErrors++;
+          log.error("Failed to write {} audit events to {}", drained, properties.file(), e);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Failed to close audit log {}", properties.file(), e);
+    }
+  }
+}
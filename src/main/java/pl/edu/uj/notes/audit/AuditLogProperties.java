@@ -0,0 +1,34 @@
+package pl.edu.uj.notes.audit;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Audit log settings. {@code capacity} is rounded up to a power of two. Under {@link
+ * OverflowPolicy#SAMPLE} only one in {@code sampleRate} events is kept once the buffer is more
+ * than {@code sampleThreshold} full; under {@link OverflowPolicy#BLOCK} a producer waits at most
+ * {@code blockTimeout} for space before the event is dropped.
+ */
+@ConfigurationProperties("notes.audit")
+record AuditLogProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("logs/audit.log") Path file,
+    @DefaultValue("8192") int capacity,
+    @DefaultValue("512") int batchSize,
+    @DefaultValue("PT0.01S") Duration pollInterval,
+    @DefaultValue("10MB") DataSize maxFileSize,
+    @DefaultValue("5") int maxHistory,
+    @DefaultValue("DROP") OverflowPolicy overflowPolicy,
+    @DefaultValue("PT0.05S") Duration blockTimeout,
+    @DefaultValue("0.75") double sampleThreshold,
+    @DefaultValue("10") int sampleRate) {
+
+  enum OverflowPolicy {
+    DROP,
+    BLOCK,
+    SAMPLE
+  }
+}
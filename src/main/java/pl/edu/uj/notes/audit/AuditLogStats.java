@@ -0,0 +1,15 @@
+package pl.edu.uj.notes.audit;
+
+public record AuditLogStats(
+    boolean enabled,
+    String overflowPolicy,
+    int capacity,
+    int queued,
+    long published,
+    long dropped,
+    long sampledOut,
+    long blocked,
+    long written,
+    long bytesWritten,
+    long rotations,
+    long writeErrors) {}
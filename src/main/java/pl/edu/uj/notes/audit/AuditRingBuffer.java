@@ -0,0 +1,98 @@
+package pl.edu.uj.notes.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer ring of preallocated audit entries. Each slot
+ * carries a sequence number: producers claim a slot by advancing the tail with a CAS and publish
+ * it by bumping its sequence, and the consumer hands it back one lap ahead once drained. Nothing
+ * is allocated per event.
+ */
+class AuditRingBuffer {
+
+  static final class Entry {
+    private volatile long sequence;
+    long timestamp;
+    String method;
+    String path;
+    int status;
+    long durationNanos;
+    String username;
+  }
+
+  private final Entry[] entries;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  AuditRingBuffer(int requestedCapacity) {
+    int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+    this.entries = new Entry[capacity];
+    this.mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      entries[i] = new Entry();
+      entries[i].sequence = i;
+    }
+  }
+
+  int capacity() {
+    return entries.length;
+  }
+
+  int size() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+
+  /** Returns {@code false} without waiting when the ring is full. */
+  boolean offer(
+      long timestamp, String method, String path, int status, long durationNanos, String username) {
+    long position = tail.get();
+    while (true) {
+      Entry entry = entries[(int) (position & mask)];
+      long lag = entry.sequence - position;
+      if (lag == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          entry.timestamp = timestamp;
+          entry.method = method;
+          entry.path = path;
+          entry.status = status;
+          entry.durationNanos = durationNanos;
+          entry.username = username;
+          entry.sequence = position + 1;
+          return true;
+        }
+        position = tail.get();
+      } else if (lag < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /** Passes up to {@code max} published entries to {@code consumer}; single consumer only. */
+  int drain(Consumer<Entry> consumer, int max) {
+    long position = head.get();
+    int drained = 0;
+    while (drained < max) {
+      Entry entry = entries[(int) (position & mask)];
+      if (entry.sequence != position + 1) {
+        break;
+      }
+
+      try {
+        consumer.accept(entry);
+      } finally {
+        entry.method = null;
+        entry.path = null;
+        entry.username = null;
+        entry.sequence = position + entries.length;
+        position++;
+        head.lazySet(position);
+        drained++;
+      }
+    }
+    return drained;
+  }
+}
@@ -1,45 +1,70 @@
 package pl.edu.uj.notes.audit;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.Instant;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.event.Level;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import pl.edu.uj.notes.metrics.QueryCounter;
+import pl.edu.uj.notes.metrics.RequestMetrics;
+import pl.edu.uj.notes.metrics.RequestMetrics.UserType;
 
-@Slf4j
 @Component
-@RequiredArgsConstructor
 public class LoggingRequestFilter extends OncePerRequestFilter {
-  private final ObjectMapper objectMapper;
+  private final AuditLog auditLog;
+  private final RequestMetrics requestMetrics;
+
+  LoggingRequestFilter(
+      ObjectProvider<AuditLog> auditLog, ObjectProvider<RequestMetrics> requestMetrics) {
+    this.auditLog = auditLog.getIfAvailable();
+    this.requestMetrics = requestMetrics.getIfAvailable();
+  }
 
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
-    long startTime = Instant.now().toEpochMilli();
-    String path = request.getMethod() + " " + request.getRequestURI();
-
-    filterChain.doFilter(request, response);
+    long startTime = System.nanoTime();
+    QueryCounter.reset();
 
-    long duration = Instant.now().toEpochMilli() - startTime;
-    int statusCode = response.getStatus();
-    var requestLog = new RequestLog(path, duration, statusCode, getUsername());
-
-    Level logLevel = statusCode > 399 ? Level.ERROR : Level.INFO;
-    log.atLevel(logLevel).log(objectMapper.writeValueAsString(requestLog));
+    int statusCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    try {
+      filterChain.doFilter(request, response);
+      statusCode = response.getStatus();
+    } finally {
+      record(request, statusCode, System.nanoTime() - startTime);
+    }
   }
 
-  private String getUsername() {
+  /** Runs in {@code finally} so requests failing with an unhandled exception are counted too. */
+  private void record(HttpServletRequest request, int statusCode, long duration) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (auditLog != null) {
+      auditLog.record(
+          request.getMethod(),
+          request.getRequestURI(),
+          statusCode,
+          duration,
+          getUsername(authentication));
+    }
+    if (requestMetrics != null) {
+      requestMetrics.record(
+          request.getMethod(),
+          (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+          statusCode,
+          UserType.of(authentication),
+          duration,
+          QueryCounter.current());
+    }
+  }
+
+  private String getUsername(Authentication authentication) {
     if (authentication != null) {
       return authentication.getName();
     }
@@ -47,5 +72,3 @@ public class LoggingRequestFilter extends OncePerRequestFilter {
     return null;
   }
 }
-
-record RequestLog(String path, long duration, int statusCode, String username) {}
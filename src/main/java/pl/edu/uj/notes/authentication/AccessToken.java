@@ -0,0 +1,3 @@
+package pl.edu.uj.notes.authentication;
+
+record AccessToken(String accessToken, String tokenType, long expiresIn) {}
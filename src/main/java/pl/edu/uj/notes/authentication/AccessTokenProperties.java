@@ -0,0 +1,12 @@
+package pl.edu.uj.notes.authentication;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Access token settings. When {@code secret} is blank a random key is generated at startup, so
+ * tokens only stay valid on the instance that issued them until it restarts.
+ */
+@ConfigurationProperties("notes.auth.token")
+record AccessTokenProperties(String secret, @DefaultValue("PT15M") Duration ttl) {}
@@ -0,0 +1,114 @@
+package pl.edu.uj.notes.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import pl.edu.uj.notes.user.InternalUserService;
+import pl.edu.uj.notes.user.UserEntity;
+
+/**
+ * Issues and verifies HMAC-signed access tokens of the form {@code payload.signature}, where the
+ * payload is {@code userId:credentialsVersion:expiresAt}. Verification costs one HMAC and one
+ * primary key lookup; a token stops working as soon as the user is blocked or their credentials
+ * version changes.
+ */
+@Slf4j
+@Service
+class AccessTokenService {
+
+  static final String TOKEN_TYPE = "Bearer";
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final InternalUserService userService;
+  private final AccessTokenProperties properties;
+  private final SecretKeySpec key;
+  private final Clock clock;
+
+  @Autowired
+  AccessTokenService(InternalUserService userService, AccessTokenProperties properties) {
+    this(userService, properties, Clock.systemUTC());
+  }
+
+  AccessTokenService(
+      InternalUserService userService, AccessTokenProperties properties, Clock clock) {
+    this.userService = userService;
+    this.properties = properties;
+    this.key = new SecretKeySpec(secret(properties), ALGORITHM);
+    this.clock = clock;
+  }
+
+  AccessToken issue(UserEntity user) {
+    Instant expiresAt = clock.instant().plus(properties.ttl());
+    String payload =
+        user.getId() + ":" + user.getCredentialsVersion() + ":" + expiresAt.getEpochSecond();
+    String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+    return new AccessToken(
+        encoded + "." + ENCODER.encodeToString(sign(encoded)),
+        TOKEN_TYPE,
+        properties.ttl().toSeconds());
+  }
+
+  Optional<UserEntity> verify(String token) {
+    String[] parts = StringUtils.split(token, '.');
+    if (parts.length != 2) {
+      return Optional.empty();
+    }
+
+    try {
+      if (!MessageDigest.isEqual(sign(parts[0]), DECODER.decode(parts[1]))) {
+        return Optional.empty();
+      }
+
+      String[] claims = new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8).split(":");
+      if (claims.length != 3
+          || clock.instant().isAfter(Instant.ofEpochSecond(Long.parseLong(claims[2])))) {
+        return Optional.empty();
+      }
+
+      long credentialsVersion = Long.parseLong(claims[1]);
+      return userService
+          .getUserById(claims[0])
+          .filter(user -> !user.isBlocked())
+          .filter(user -> user.getCredentialsVersion() == credentialsVersion);
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private byte[] sign(String payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] secret(AccessTokenProperties properties) {
+    if (StringUtils.isNotBlank(properties.secret())) {
+      return properties.secret().getBytes(StandardCharsets.UTF_8);
+    }
+
+    log.warn("notes.auth.token.secret is not set, using a random key for this instance");
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    return secret;
+  }
+}
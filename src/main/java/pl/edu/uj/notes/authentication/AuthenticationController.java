@@ -0,0 +1,21 @@
+package pl.edu.uj.notes.authentication;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/auth")
+class AuthenticationController {
+
+  private final PrincipalService principalService;
+  private final AccessTokenService accessTokenService;
+
+  @PostMapping("/token")
+  ResponseEntity<AccessToken> issueToken() {
+    return ResponseEntity.ok(accessTokenService.issue(principalService.fetchCurrentUser()));
+  }
+}
@@ -40,6 +40,10 @@ class AuthenticationService implements UserDetailsService, PrincipalService {
       throw new NotAuthenticatedException(msg);
     }
 
+    if (authentication.getPrincipal() instanceof UserDetailsAdapter userDetails) {
+      return userDetails.user();
+    }
+
     Optional<UserEntity> currentUser = userService.getUserByUsername(authentication.getName());
     if (currentUser.isEmpty()) {
       var msg = "Failed to get user for " + authentication.getName();
@@ -1,6 +1,7 @@
 package pl.edu.uj.notes.authentication;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,10 +10,12 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import pl.edu.uj.notes.audit.LoggingRequestFilter;
 
 @Configuration
@@ -24,6 +27,7 @@ public class SecurityConfig {
   private static final String REGISTER_ROUTE = "/api/v1/user";
 
   private final LoggingRequestFilter loggingRequestFilter;
+  private final ObjectProvider<AccessTokenService> accessTokenService;
 
   @Bean
   SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -40,6 +44,12 @@ public class SecurityConfig {
     http.addFilterAfter(loggingRequestFilter, AuthenticationFilter.class);
 
     http.httpBasic(Customizer.withDefaults());
+    accessTokenService.ifAvailable(
+        tokens ->
+            http.addFilterBefore(
+                new TokenAuthenticationFilter(tokens), BasicAuthenticationFilter.class));
+    http.sessionManagement(
+        session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
     http.cors(AbstractHttpConfigurer::disable);
     http.csrf(AbstractHttpConfigurer::disable);
@@ -0,0 +1,63 @@
+package pl.edu.uj.notes.authentication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pl.edu.uj.notes.user.UserEntity;
+
+/**
+ * Authenticates {@code Authorization: Bearer} requests without touching the password encoder.
+ * Token issuing is skipped so a token can never be exchanged for a fresh one without the password.
+ */
+@RequiredArgsConstructor
+class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+  private static final String PREFIX = AccessTokenService.TOKEN_TYPE + " ";
+  private static final RequestMatcher ISSUE_REQUEST =
+      new AntPathRequestMatcher("/api/v1/auth/token");
+
+  private final AccessTokenService accessTokenService;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return ISSUE_REQUEST.matches(request);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (header == null || !header.startsWith(PREFIX)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    Optional<UserEntity> user = accessTokenService.verify(header.substring(PREFIX.length()));
+    if (user.isEmpty()) {
+      response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+      response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+
+    var principal = new UserDetailsAdapter(user.get());
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(
+        UsernamePasswordAuthenticationToken.authenticated(
+            principal, null, principal.getAuthorities()));
+    SecurityContextHolder.setContext(context);
+
+    filterChain.doFilter(request, response);
+  }
+}
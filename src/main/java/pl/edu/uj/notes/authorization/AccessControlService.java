@@ -1,7 +1,9 @@
 package pl.edu.uj.notes.authorization;
 
+import java.util.Optional;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import pl.edu.uj.notes.authentication.PrincipalService;
 import pl.edu.uj.notes.note.Note;
@@ -16,8 +18,11 @@ public class AccessControlService {
   private final NoteAccessAuthorizationStrategy noteAccessAuthorizationStrategy;
 
   public boolean userHasAccessTo(@NonNull Object resource, @NonNull Action action) {
-    UserEntity subject = principalService.fetchCurrentUser();
+    return userHasAccessTo(principalService.fetchCurrentUser(), resource, action);
+  }
 
+  public boolean userHasAccessTo(
+      @NonNull UserEntity subject, @NonNull Object resource, @NonNull Action action) {
     if (resource instanceof UserEntity userEntity) {
       return userEntityAuthorizationStrategy.hasAccessTo(subject, userEntity, action);
     }
@@ -28,4 +33,14 @@ public class AccessControlService {
 
     return false;
   }
+
+  public Specification<Note> noteSpecification(@NonNull Action action) {
+    return noteAccessAuthorizationStrategy.specification(
+        principalService.fetchCurrentUser(), action);
+  }
+
+  public Optional<String> noteOwnerRestriction(@NonNull Action action) {
+    return noteAccessAuthorizationStrategy.ownerRestriction(
+        principalService.fetchCurrentUser(), action);
+  }
 }
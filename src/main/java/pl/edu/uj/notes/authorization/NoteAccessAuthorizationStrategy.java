@@ -1,6 +1,8 @@
 package pl.edu.uj.notes.authorization;
 
+import java.util.Optional;
 import lombok.NonNull;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import pl.edu.uj.notes.note.Note;
 import pl.edu.uj.notes.user.UserEntity;
@@ -17,4 +19,23 @@ public class NoteAccessAuthorizationStrategy implements AuthorizationStrategy<No
 
     return subject.getId().equals(resource.getOwner().getId());
   }
+
+  /**
+   * Returns the owner id notes must belong to for {@code subject} to perform {@code action}, or
+   * an empty optional when the action is allowed on every note.
+   */
+  public Optional<String> ownerRestriction(@NonNull UserEntity subject, @NonNull Action action) {
+    if (subject.isAdmin() && Action.READ.equals(action)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(subject.getId());
+  }
+
+  public Specification<Note> specification(@NonNull UserEntity subject, @NonNull Action action) {
+    return ownerRestriction(subject, action)
+        .<Specification<Note>>map(
+            ownerId -> (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId))
+        .orElse((root, query, cb) -> cb.conjunction());
+  }
 }
@@ -5,8 +5,11 @@ import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import pl.edu.uj.notes.note.Note;
+import pl.edu.uj.notes.persistence.GeneratedUuidV7;
+import pl.edu.uj.notes.persistence.UuidStringType;
 
 @Data
 @Entity
@@ -16,7 +19,8 @@ import pl.edu.uj.notes.note.Note;
 public class Category {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @GeneratedUuidV7
+  @Type(UuidStringType.class)
   private String id;
 
   private String name;
@@ -1,5 +1,6 @@
 package pl.edu.uj.notes.category;
 
+import jakarta.validation.Valid;
 import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -23,8 +24,12 @@ class CategoryController {
   }
 
   @GetMapping
-  ResponseEntity<List<CategoryDTO>> getCategories() {
-    return ResponseEntity.ok(categoryService.getCategories());
+  ResponseEntity<CategoryPage> getCategories(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      @RequestParam(required = false) Integer notesLimit) {
+    var pageRequest = new CategoryPageRequest(cursor, size, notesLimit);
+    return ResponseEntity.ok(categoryService.getCategories(pageRequest));
   }
 
   @GetMapping("/{id}")
@@ -39,6 +44,24 @@ class CategoryController {
     return ResponseEntity.ok(categoryService.updateCategory(id, request));
   }
 
+  @PostMapping("/{id}/notes")
+  ResponseEntity<MembershipChangeResult> addNotes(
+      @PathVariable String id, @Valid @RequestBody CategoryNotesRequest request) {
+    return ResponseEntity.ok(categoryService.addNotes(id, request.noteIds()));
+  }
+
+  @DeleteMapping("/{id}/notes")
+  ResponseEntity<MembershipChangeResult> removeNotes(
+      @PathVariable String id, @Valid @RequestBody CategoryNotesRequest request) {
+    return ResponseEntity.ok(categoryService.removeNotes(id, request.noteIds()));
+  }
+
+  @PatchMapping("/notes")
+  ResponseEntity<List<MembershipChangeResult>> changeMemberships(
+      @Valid @RequestBody MembershipChangeRequest request) {
+    return ResponseEntity.ok(categoryService.changeMemberships(request.changes()));
+  }
+
   @DeleteMapping("/{id}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   ResponseEntity<Void> deleteCategory(@PathVariable String id) {
@@ -3,4 +3,5 @@ package pl.edu.uj.notes.category;
 import java.util.List;
 import pl.edu.uj.notes.note.NoteDTO;
 
-record CategoryDTO(String id, String name, List<NoteDTO> notes) {}
+/** {@code notes} may be truncated to the requested limit; {@code noteCount} is the full size. */
+record CategoryDTO(String id, String name, List<NoteDTO> notes, long noteCount) {}
@@ -0,0 +1,7 @@
+package pl.edu.uj.notes.category;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+record CategoryNotesRequest(@NotEmpty @Size(max = 1000) List<String> noteIds) {}
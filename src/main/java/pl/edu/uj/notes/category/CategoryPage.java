@@ -0,0 +1,5 @@
+package pl.edu.uj.notes.category;
+
+import java.util.List;
+
+record CategoryPage(List<CategoryDTO> categories, String nextCursor) {}
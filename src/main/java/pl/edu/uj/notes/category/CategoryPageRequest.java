@@ -0,0 +1,8 @@
+package pl.edu.uj.notes.category;
+
+record CategoryPageRequest(String cursor, Integer size, Integer notesLimit) {
+
+  static CategoryPageRequest firstPage() {
+    return new CategoryPageRequest(null, null, null);
+  }
+}
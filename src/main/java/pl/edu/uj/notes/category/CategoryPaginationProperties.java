@@ -0,0 +1,28 @@
+package pl.edu.uj.notes.category;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("notes.categories.pagination")
+record CategoryPaginationProperties(
+    @DefaultValue("50") int defaultPageSize,
+    @DefaultValue("500") int maxPageSize,
+    @DefaultValue("50") int defaultNotesLimit,
+    @DefaultValue("1000") int maxNotesLimit) {
+
+  int resolvePageSize(Integer requested) {
+    return resolve(requested, defaultPageSize, maxPageSize);
+  }
+
+  int resolveNotesLimit(Integer requested) {
+    return resolve(requested, defaultNotesLimit, maxNotesLimit);
+  }
+
+  private static int resolve(Integer requested, int defaultValue, int maxValue) {
+    if (requested == null || requested < 1) {
+      return defaultValue;
+    }
+
+    return Math.min(requested, maxValue);
+  }
+}
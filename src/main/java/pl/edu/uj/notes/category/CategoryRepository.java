@@ -1,7 +1,108 @@
 package pl.edu.uj.notes.category;
 
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-interface CategoryRepository extends JpaRepository<Category, String> {}
+interface CategoryRepository extends JpaRepository<Category, String> {
+
+  List<Category> findAllByOrderByIdAsc(Limit limit);
+
+  List<Category> findAllByIdGreaterThanOrderByIdAsc(String afterId, Limit limit);
+
+  /**
+   * Returns {@code [category_id, notes_id, total]} rows with at most {@code limit} notes per
+   * category, where {@code total} is the category's full membership count.
+   */
+  @Query(
+      value =
+          """
+          SELECT m.category_id, m.notes_id, m.total FROM (
+            SELECT cn.category_id, cn.notes_id,
+                   ROW_NUMBER() OVER (
+                     PARTITION BY cn.category_id ORDER BY cn.notes_id) AS member_rank,
+                   COUNT(*) OVER (PARTITION BY cn.category_id) AS total
+            FROM category_notes cn
+            WHERE cn.category_id IN (:categoryIds)
+          ) m
+          WHERE m.member_rank <= :limit
+          ORDER BY m.category_id, m.notes_id
+          """,
+      nativeQuery = true)
+  List<Object[]> findMemberships(Collection<UUID> categoryIds, int limit);
+
+  @Query("SELECT c.id FROM Category c WHERE c.id IN :ids")
+  List<String> findExistingIds(Collection<String> ids);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<Category> findForUpdateById(String id);
+
+  /**
+   * Links the active notes among {@code noteIds} that are not yet members of the category. A
+   * non-null {@code ownerId} restricts the insert to that owner's notes. Rows added concurrently by
+   * another transaction are skipped, so the statement never fails on {@code pk_category_notes}.
+   * PostgreSQL only.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          """
+          INSERT INTO category_notes (category_id, notes_id)
+          SELECT :categoryId, n.id FROM note n
+          WHERE n.id IN (:noteIds) AND n.active = true
+            AND (CAST(:ownerId AS uuid) IS NULL OR n.owner_id = :ownerId)
+          ON CONFLICT (category_id, notes_id) DO NOTHING
+          """,
+      nativeQuery = true)
+  int addMemberships(UUID categoryId, Collection<UUID> noteIds, UUID ownerId);
+
+  /**
+   * Portable form of {@link #addMemberships}. {@code MERGE} alone does not skip rows inserted by a
+   * concurrent transaction, so callers lock the category with {@link #findForUpdateById} first.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          """
+          MERGE INTO category_notes cn
+          USING (
+            SELECT n.id AS notes_id FROM note n
+            WHERE n.id IN (:noteIds) AND n.active = true
+              AND (CAST(:ownerId AS uuid) IS NULL OR n.owner_id = :ownerId)
+          ) s
+          ON cn.category_id = :categoryId AND cn.notes_id = s.notes_id
+          WHEN NOT MATCHED THEN INSERT (category_id, notes_id) VALUES (:categoryId, s.notes_id)
+          """,
+      nativeQuery = true)
+  int mergeMemberships(UUID categoryId, Collection<UUID> noteIds, UUID ownerId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          "DELETE FROM category_notes WHERE category_id = :categoryId AND notes_id IN (:noteIds)",
+      nativeQuery = true)
+  int removeMemberships(UUID categoryId, Collection<UUID> noteIds);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          """
+          DELETE FROM category_notes
+          WHERE category_id = :categoryId AND notes_id NOT IN (:noteIds)
+          """,
+      nativeQuery = true)
+  int retainMemberships(UUID categoryId, Collection<UUID> noteIds);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = "DELETE FROM category_notes WHERE category_id = :categoryId", nativeQuery = true)
+  int removeAllMemberships(UUID categoryId);
+}
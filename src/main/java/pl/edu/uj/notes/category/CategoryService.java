@@ -1,13 +1,25 @@
 package pl.edu.uj.notes.category;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.authorization.AccessControlService;
+import pl.edu.uj.notes.authorization.Action;
 import pl.edu.uj.notes.category.exception.CategoryNotFoundException;
-import pl.edu.uj.notes.note.Note;
 import pl.edu.uj.notes.note.NoteDTO;
 import pl.edu.uj.notes.note.NoteService;
+import pl.edu.uj.notes.persistence.DatabasePlatform;
+import pl.edu.uj.notes.persistence.UuidKeys;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +27,9 @@ public class CategoryService {
 
   private final CategoryRepository categoryRepository;
   private final NoteService noteService;
+  private final CategoryPaginationProperties paginationProperties;
+  private final AccessControlService accessControlService;
+  private final DatabasePlatform databasePlatform;
 
   String createCategory(CreateCategoryRequest request) {
     Category category = new Category(request.name());
@@ -22,37 +37,156 @@ public class CategoryService {
     return category.getId();
   }
 
-  List<CategoryDTO> getCategories() {
-    List<Category> categories = categoryRepository.findAll();
-    List<CategoryDTO> categoriesDTO = new ArrayList<>();
-    for (Category category : categories) {
-      List<NoteDTO> noteDTOs = noteService.getNoteDTOs(category.getNotes());
-      categoriesDTO.add(new CategoryDTO(category.getId(), category.getName(), noteDTOs));
+  /**
+   * Returns one page of categories ordered by id. The view is assembled with one query each for
+   * categories, memberships (at most {@code notesLimit} per category) and notes with their current
+   * snapshots, regardless of page size.
+   */
+  @Transactional(readOnly = true)
+  CategoryPage getCategories(CategoryPageRequest pageRequest) {
+    int pageSize = paginationProperties.resolvePageSize(pageRequest.size());
+    Limit limit = Limit.of(pageSize + 1);
+    List<Category> categories =
+        pageRequest.cursor() == null || pageRequest.cursor().isBlank()
+            ? categoryRepository.findAllByOrderByIdAsc(limit)
+            : categoryRepository.findAllByIdGreaterThanOrderByIdAsc(pageRequest.cursor(), limit);
+
+    boolean hasNext = categories.size() > pageSize;
+    if (hasNext) {
+      categories = categories.subList(0, pageSize);
     }
-    return categoriesDTO;
+
+    List<CategoryDTO> categoryDTOs =
+        toDTOs(categories, paginationProperties.resolveNotesLimit(pageRequest.notesLimit()));
+    return new CategoryPage(categoryDTOs, hasNext ? categories.getLast().getId() : null);
   }
 
+  @Transactional(readOnly = true)
   CategoryDTO getCategory(String id) {
     Category category = categoryRepository.findById(id).orElseThrow(CategoryNotFoundException::new);
-    List<NoteDTO> noteDTOs = noteService.getNoteDTOs(category.getNotes());
-
-    return new CategoryDTO(category.getId(), category.getName(), noteDTOs);
+    return toDTOs(List.of(category), Integer.MAX_VALUE).getFirst();
   }
 
+  /**
+   * Renames the category and makes {@code noteIds} its exact membership. Only the rows that differ
+   * are deleted or inserted; notes the caller cannot read are skipped.
+   */
+  @Transactional
   CategoryDTO updateCategory(String id, UpdateCategoryRequest request) {
     Category category = categoryRepository.findById(id).orElseThrow(CategoryNotFoundException::new);
-
-    List<String> noteIds = request.noteIds();
-    List<Note> notes = noteService.getNotes(noteIds);
-
     category.setName(request.name());
-    category.setNotes(notes);
     categoryRepository.save(category);
-    return new CategoryDTO(category.getId(), category.getName(), noteService.getNoteDTOs(notes));
+
+    UUID categoryKey = UuidKeys.toUuid(id);
+    List<String> noteIds = request.noteIds() == null ? List.of() : request.noteIds();
+    if (noteIds.isEmpty()) {
+      categoryRepository.removeAllMemberships(categoryKey);
+    } else {
+      List<UUID> noteKeys = UuidKeys.toUuids(noteIds);
+      categoryRepository.retainMemberships(categoryKey, noteKeys);
+      addMemberships(categoryKey, noteKeys, readableOwnerKey());
+    }
+    return toDTOs(List.of(category), Integer.MAX_VALUE).getFirst();
+  }
+
+  @Transactional
+  MembershipChangeResult addNotes(String id, List<String> noteIds) {
+    return changeMemberships(List.of(new MembershipChange(id, noteIds, List.of()))).getFirst();
+  }
+
+  @Transactional
+  MembershipChangeResult removeNotes(String id, List<String> noteIds) {
+    return changeMemberships(List.of(new MembershipChange(id, List.of(), noteIds))).getFirst();
+  }
+
+  /**
+   * Applies membership changes across categories in one transaction, with at most one insert and
+   * one delete statement per change. Adding an existing member or removing a missing one is a
+   * no-op, so repeating a request leaves the memberships unchanged.
+   */
+  @Transactional
+  List<MembershipChangeResult> changeMemberships(List<MembershipChange> changes) {
+    Set<String> categoryIds = new HashSet<>();
+    changes.forEach(change -> categoryIds.add(change.categoryId()));
+    if (categoryRepository.findExistingIds(categoryIds).size() != categoryIds.size()) {
+      throw new CategoryNotFoundException();
+    }
+
+    UUID ownerKey = readableOwnerKey();
+    List<MembershipChangeResult> results = new ArrayList<>();
+    for (MembershipChange change : changes) {
+      UUID categoryKey = UuidKeys.toUuid(change.categoryId());
+      int removed =
+          isEmpty(change.remove())
+              ? 0
+              : categoryRepository.removeMemberships(
+                  categoryKey, UuidKeys.toUuids(change.remove()));
+      int added =
+          isEmpty(change.add())
+              ? 0
+              : addMemberships(categoryKey, UuidKeys.toUuids(change.add()), ownerKey);
+      results.add(new MembershipChangeResult(change.categoryId(), added, removed));
+    }
+    return results;
   }
 
   void deleteCategory(String id) {
     Category category = categoryRepository.findById(id).orElseThrow(CategoryNotFoundException::new);
     categoryRepository.delete(category);
   }
+
+  private int addMemberships(UUID categoryKey, List<UUID> noteKeys, UUID ownerKey) {
+    if (databasePlatform.isPostgres()) {
+      return categoryRepository.addMemberships(categoryKey, noteKeys, ownerKey);
+    }
+    categoryRepository.findForUpdateById(UuidKeys.toId(categoryKey));
+    return categoryRepository.mergeMemberships(categoryKey, noteKeys, ownerKey);
+  }
+
+  private UUID readableOwnerKey() {
+    return accessControlService
+        .noteOwnerRestriction(Action.READ)
+        .map(UuidKeys::toUuid)
+        .orElse(null);
+  }
+
+  private static boolean isEmpty(List<String> noteIds) {
+    return noteIds == null || noteIds.isEmpty();
+  }
+
+  private List<CategoryDTO> toDTOs(List<Category> categories, int notesLimit) {
+    if (categories.isEmpty()) {
+      return List.of();
+    }
+
+    Map<String, List<String>> noteIdsByCategory = new HashMap<>();
+    Map<String, Long> noteCounts = new HashMap<>();
+    Set<String> noteIds = new LinkedHashSet<>();
+    List<String> categoryIds = categories.stream().map(Category::getId).toList();
+    for (Object[] membership :
+        categoryRepository.findMemberships(UuidKeys.toUuids(categoryIds), notesLimit)) {
+      String categoryId = UuidKeys.toId(membership[0]);
+      String noteId = UuidKeys.toId(membership[1]);
+      noteIdsByCategory.computeIfAbsent(categoryId, ignored -> new ArrayList<>()).add(noteId);
+      noteCounts.put(categoryId, ((Number) membership[2]).longValue());
+      noteIds.add(noteId);
+    }
+
+    Map<String, NoteDTO> notes = noteService.getNoteDTOsByIds(noteIds);
+    List<CategoryDTO> categoryDTOs = new ArrayList<>();
+    for (Category category : categories) {
+      List<NoteDTO> categoryNotes =
+          noteIdsByCategory.getOrDefault(category.getId(), List.of()).stream()
+              .map(notes::get)
+              .filter(Objects::nonNull)
+              .toList();
+      categoryDTOs.add(
+          new CategoryDTO(
+              category.getId(),
+              category.getName(),
+              categoryNotes,
+              noteCounts.getOrDefault(category.getId(), 0L)));
+    }
+    return categoryDTOs;
+  }
 }
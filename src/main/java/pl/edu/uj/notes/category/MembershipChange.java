@@ -0,0 +1,11 @@
+package pl.edu.uj.notes.category;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/** Notes to add to and remove from one category; removals are applied first. */
+record MembershipChange(
+    @NotBlank String categoryId,
+    @Size(max = 1000) List<String> add,
+    @Size(max = 1000) List<String> remove) {}
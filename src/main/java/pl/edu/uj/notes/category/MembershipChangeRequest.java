@@ -0,0 +1,8 @@
+package pl.edu.uj.notes.category;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+record MembershipChangeRequest(@NotEmpty @Size(max = 500) List<@Valid MembershipChange> changes) {}
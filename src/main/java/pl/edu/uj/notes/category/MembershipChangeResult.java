@@ -0,0 +1,4 @@
+package pl.edu.uj.notes.category;
+
+/** Number of {@code category_notes} rows actually inserted and deleted for one category. */
+record MembershipChangeResult(String categoryId, int added, int removed) {}
@@ -0,0 +1,11 @@
+package pl.edu.uj.notes.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("notes.threads.pinning")
+record PinningMonitorProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("PT20MS") Duration threshold,
+    @DefaultValue("8") int stackDepth) {}
@@ -0,0 +1,89 @@
+package pl.edu.uj.notes.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams {@code jdk.VirtualThreadPinned} JFR events while virtual threads are enabled and logs
+ * every pin that lasts longer than the configured threshold, with the frames that caused it. A
+ * virtual thread blocked while pinned holds its carrier, so these show where the request path
+ * still serializes on a monitor.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(value = "notes.threads.pinning.enabled", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private final PinningMonitorProperties properties;
+  private final AtomicLong pinnedCount = new AtomicLong();
+  private RecordingStream stream;
+
+  VirtualThreadPinningMonitor(PinningMonitorProperties properties) {
+    this.properties = properties;
+  }
+
+  public long pinnedCount() {
+    return pinnedCount.get();
+  }
+
+  @Override
+  public void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(properties.threshold()).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+    log.info("Reporting virtual thread pinning longer than {}", properties.threshold());
+  }
+
+  @Override
+  public void stop() {
+    if (stream != null) {
+      stream.close();
+      stream = null;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinnedCount.incrementAndGet();
+    log.warn(
+        "Virtual thread {} pinned for {} ms at {}",
+        event.getThread() == null ? "?" : event.getThread().getJavaName(),
+        event.getDuration().toMillis(),
+        frames(event));
+  }
+
+  private String frames(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return "<no stack trace>";
+    }
+
+    return event.getStackTrace().getFrames().stream()
+        .filter(RecordedFrame::isJavaFrame)
+        .limit(properties.stackDepth())
+        .map(
+            frame ->
+                frame.getMethod().getType().getName()
+                    + "."
+                    + frame.getMethod().getName()
+                    + ":"
+                    + frame.getLineNumber())
+        .collect(Collectors.joining(" <- "));
+  }
+}
@@ -0,0 +1,38 @@
+package pl.edu.uj.notes.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  HibernatePropertiesCustomizer queryCountingCustomizer() {
+    return properties ->
+        properties.put(
+            AvailableSettings.STATEMENT_INSPECTOR,
+            new QueryCountingStatementInspector(
+                configuredInspector(properties.get(AvailableSettings.STATEMENT_INSPECTOR))));
+  }
+
+  private static StatementInspector configuredInspector(Object configured) {
+    if (configured == null) {
+      return null;
+    }
+    if (configured instanceof StatementInspector inspector) {
+      return inspector;
+    }
+
+    ClassLoader classLoader = MetricsConfig.class.getClassLoader();
+    Class<?> type =
+        configured instanceof Class<?> c
+            ? c
+            : ClassUtils.resolveClassName(configured.toString(), classLoader);
+    return (StatementInspector) BeanUtils.instantiateClass(type);
+  }
+}
@@ -0,0 +1,32 @@
+package pl.edu.uj.notes.metrics;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pl.edu.uj.notes.audit.AuditLog;
+import pl.edu.uj.notes.metrics.RequestMetrics.RouteMetrics;
+
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+class MetricsController {
+
+  private final RequestMetrics requestMetrics;
+  private final AuditLog auditLog;
+
+  @GetMapping
+  @PreAuthorize("hasRole('ADMIN')")
+  ResponseEntity<List<RouteMetrics>> getMetrics() {
+    return ResponseEntity.ok(requestMetrics.snapshot());
+  }
+
+  @GetMapping(value = "/prometheus", produces = PrometheusFormat.CONTENT_TYPE)
+  @PreAuthorize("hasRole('ADMIN')")
+  ResponseEntity<String> getPrometheusMetrics() {
+    return ResponseEntity.ok(PrometheusFormat.write(requestMetrics.snapshot(), auditLog.stats()));
+  }
+}
@@ -0,0 +1,25 @@
+package pl.edu.uj.notes.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Request metrics settings. Histograms are rotated every {@code slice}; each of {@code windows}
+ * is reported over the most recent slices covering it and should be a multiple of the slice.
+ */
+@ConfigurationProperties("notes.metrics")
+record MetricsProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("PT10S") Duration slice,
+    @DefaultValue({"PT1M", "PT5M"}) List<Duration> windows) {
+
+  int slicesPer(Duration window) {
+    return (int) Math.max(1, window.toMillis() / slice.toMillis());
+  }
+
+  int maxSlices() {
+    return windows.stream().mapToInt(this::slicesPer).max().orElse(1);
+  }
+}
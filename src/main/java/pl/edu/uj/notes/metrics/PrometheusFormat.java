@@ -0,0 +1,131 @@
+package pl.edu.uj.notes.metrics;
+
+import java.util.List;
+import pl.edu.uj.notes.audit.AuditLogStats;
+import pl.edu.uj.notes.metrics.RequestMetrics.RouteMetrics;
+import pl.edu.uj.notes.metrics.RequestMetrics.WindowMetrics;
+
+/**
+ * Renders {@link RouteMetrics} and the audit log counters in the Prometheus text exposition format
+ * (version 0.0.4).
+ */
+final class PrometheusFormat {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private PrometheusFormat() {}
+
+  static String write(List<RouteMetrics> metrics, AuditLogStats audit) {
+    StringBuilder out = new StringBuilder();
+
+    header(out, "notes_http_requests_total", "counter", "Requests handled since startup.");
+    for (RouteMetrics route : metrics) {
+      sample(out, "notes_http_requests_total", route, null, null, route.total());
+    }
+
+    header(
+        out,
+        "notes_http_request_duration_seconds",
+        "summary",
+        "Request latency quantiles over sliding windows.");
+    for (RouteMetrics route : metrics) {
+      for (WindowMetrics window : route.windows()) {
+        String name = "notes_http_request_duration_seconds";
+        sample(out, name, route, window, "0.5", window.p50Millis() / 1_000);
+        sample(out, name, route, window, "0.9", window.p90Millis() / 1_000);
+        sample(out, name, route, window, "0.99", window.p99Millis() / 1_000);
+        sample(out, name, route, window, "0.999", window.p999Millis() / 1_000);
+      }
+    }
+
+    header(
+        out,
+        "notes_http_request_throughput",
+        "gauge",
+        "Requests per second over sliding windows.");
+    for (RouteMetrics route : metrics) {
+      for (WindowMetrics window : route.windows()) {
+        sample(out, "notes_http_request_throughput", route, window, null, window.throughput());
+      }
+    }
+
+    header(
+        out,
+        "notes_http_request_queries",
+        "summary",
+        "SQL statements per request over sliding windows.");
+    for (RouteMetrics route : metrics) {
+      for (WindowMetrics window : route.windows()) {
+        sample(out, "notes_http_request_queries", route, window, "0.99", window.queriesP99());
+        sample(out, "notes_http_request_queries", route, window, "1", window.queriesMax());
+      }
+    }
+
+    counter(out, "notes_audit_events_published_total", "Audit events queued.", audit.published());
+    counter(
+        out,
+        "notes_audit_events_dropped_total",
+        "Audit events dropped because the buffer was full.",
+        audit.dropped());
+    counter(
+        out,
+        "notes_audit_events_sampled_out_total",
+        "Audit events skipped by overflow sampling.",
+        audit.sampledOut());
+    counter(
+        out,
+        "notes_audit_producers_blocked_total",
+        "Requests that waited for audit buffer space.",
+        audit.blocked());
+    counter(
+        out, "notes_audit_events_written_total", "Audit events written to disk.", audit.written());
+    header(out, "notes_audit_queue_depth", "gauge", "Audit events waiting to be written.");
+    out.append("notes_audit_queue_depth ").append(audit.queued()).append('\n');
+    return out.toString();
+  }
+
+  private static void counter(StringBuilder out, String name, String help, long value) {
+    header(out, name, "counter", help);
+    out.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(
+      StringBuilder out,
+      String name,
+      RouteMetrics route,
+      WindowMetrics window,
+      String quantile,
+      double value) {
+    out.append(name).append('{');
+    label(out, "method", route.method()).append(',');
+    label(out, "route", route.route()).append(',');
+    label(out, "status", route.statusClass()).append(',');
+    label(out, "user_type", route.userType());
+    if (window != null) {
+      label(out.append(','), "window", window.window());
+    }
+    if (quantile != null) {
+      label(out.append(','), "quantile", quantile);
+    }
+    out.append("} ").append(value).append('\n');
+  }
+
+  private static StringBuilder label(StringBuilder out, String name, String value) {
+    out.append(name).append("=\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> out.append("\\\\");
+        case '"' -> out.append("\\\"");
+        case '\n' -> out.append("\\n");
+        default -> out.append(c);
+      }
+    }
+    return out.append('"');
+  }
+}
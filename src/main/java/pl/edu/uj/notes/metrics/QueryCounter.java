@@ -0,0 +1,21 @@
+package pl.edu.uj.notes.metrics;
+
+/** Counts SQL statements prepared by Hibernate on the current thread. */
+public final class QueryCounter {
+
+  private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+  private QueryCounter() {}
+
+  public static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  public static long current() {
+    return COUNT.get()[0];
+  }
+
+  static void increment() {
+    COUNT.get()[0]++;
+  }
+}
@@ -0,0 +1,19 @@
+package pl.edu.uj.notes.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/** Feeds {@link QueryCounter}, then hands the statement to any inspector configured before it. */
+class QueryCountingStatementInspector implements StatementInspector {
+
+  private final StatementInspector delegate;
+
+  QueryCountingStatementInspector(StatementInspector delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    QueryCounter.increment();
+    return delegate == null ? sql : delegate.inspect(sql);
+  }
+}
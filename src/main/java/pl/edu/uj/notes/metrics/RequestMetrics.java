@@ -0,0 +1,220 @@
+package pl.edu.uj.notes.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency and query-count histograms per method, route template, status class and user type. The
+ * recording path only looks up existing series and writes to HDR recorders, so it does not
+ * allocate once a series has been seen.
+ */
+@Component
+public class RequestMetrics {
+
+  public enum UserType {
+    ANONYMOUS,
+    USER,
+    ADMIN;
+
+    public static UserType of(Authentication authentication) {
+      if (authentication == null
+          || authentication instanceof AnonymousAuthenticationToken
+          || !authentication.isAuthenticated()) {
+        return ANONYMOUS;
+      }
+      for (GrantedAuthority authority : authentication.getAuthorities()) {
+        if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+          return ADMIN;
+        }
+      }
+      return USER;
+    }
+  }
+
+  static final String UNMATCHED_ROUTE = "UNMATCHED";
+  static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+  private static final long MAX_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1_000;
+  private static final long MAX_QUERIES = 100_000;
+  private static final int SERIES_PER_ROUTE = STATUS_CLASSES.length * UserType.values().length;
+
+  private final MetricsProperties properties;
+  private final Map<String, Map<String, AtomicReferenceArray<Series>>> routes =
+      new ConcurrentHashMap<>();
+
+  RequestMetrics(MetricsProperties properties) {
+    this.properties = properties;
+  }
+
+  public void record(
+      String method,
+      String route,
+      int status,
+      UserType userType,
+      long durationNanos,
+      long queries) {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    int statusClass = Math.min(Math.max(status / 100, 1), STATUS_CLASSES.length) - 1;
+    int index = statusClass * UserType.values().length + userType.ordinal();
+    AtomicReferenceArray<Series> series = series(method, route == null ? UNMATCHED_ROUTE : route);
+    Series target = series.get(index);
+    if (target == null) {
+      series.compareAndSet(index, null, new Series(properties.maxSlices()));
+      target = series.get(index);
+    }
+
+    target.total.increment();
+    target.latencyMicros.record(durationNanos / 1_000);
+    target.queries.record(queries);
+  }
+
+  @Scheduled(
+      initialDelayString = "${notes.metrics.slice:PT10S}",
+      fixedRateString = "${notes.metrics.slice:PT10S}")
+  void rotate() {
+    forEachSeries(
+        (method, route, index, series) -> {
+          series.latencyMicros.rotate();
+          series.queries.rotate();
+        });
+  }
+
+  List<RouteMetrics> snapshot() {
+    List<RouteMetrics> result = new ArrayList<>();
+    forEachSeries(
+        (method, route, index, series) -> {
+          List<WindowMetrics> windows = new ArrayList<>();
+          for (Duration window : properties.windows()) {
+            int slices = properties.slicesPer(window);
+            windows.add(
+                WindowMetrics.of(
+                    window,
+                    series.latencyMicros.window(slices),
+                    series.queries.window(slices),
+                    slices * properties.slice().toMillis() / 1_000.0));
+          }
+          result.add(
+              new RouteMetrics(
+                  method,
+                  route,
+                  STATUS_CLASSES[index / UserType.values().length],
+                  userTypeLabel(index),
+                  series.total.sum(),
+                  windows));
+        });
+    result.sort(
+        Comparator.comparing(RouteMetrics::route)
+            .thenComparing(RouteMetrics::method)
+            .thenComparing(RouteMetrics::statusClass)
+            .thenComparing(RouteMetrics::userType));
+    return result;
+  }
+
+  private static String userTypeLabel(int index) {
+    return UserType.values()[index % UserType.values().length].name().toLowerCase(Locale.ROOT);
+  }
+
+  private AtomicReferenceArray<Series> series(String method, String route) {
+    Map<String, AtomicReferenceArray<Series>> byRoute = routes.get(method);
+    if (byRoute == null) {
+      byRoute = routes.computeIfAbsent(method, ignored -> new ConcurrentHashMap<>());
+    }
+
+    AtomicReferenceArray<Series> series = byRoute.get(route);
+    if (series == null) {
+      series =
+          byRoute.computeIfAbsent(route, ignored -> new AtomicReferenceArray<>(SERIES_PER_ROUTE));
+    }
+    return series;
+  }
+
+  private void forEachSeries(SeriesVisitor visitor) {
+    routes.forEach(
+        (method, byRoute) ->
+            byRoute.forEach(
+                (route, series) -> {
+                  for (int i = 0; i < series.length(); i++) {
+                    Series s = series.get(i);
+                    if (s != null) {
+                      visitor.visit(method, route, i, s);
+                    }
+                  }
+                }));
+  }
+
+  private interface SeriesVisitor {
+    void visit(String method, String route, int index, Series series);
+  }
+
+  private static final class Series {
+    final LongAdder total = new LongAdder();
+    final SlidingHistogram latencyMicros;
+    final SlidingHistogram queries;
+
+    Series(int slices) {
+      this.latencyMicros = new SlidingHistogram(MAX_LATENCY_MICROS, slices);
+      this.queries = new SlidingHistogram(MAX_QUERIES, slices);
+    }
+  }
+
+  record RouteMetrics(
+      String method,
+      String route,
+      String statusClass,
+      String userType,
+      long total,
+      List<WindowMetrics> windows) {}
+
+  record WindowMetrics(
+      String window,
+      long count,
+      double throughput,
+      double p50Millis,
+      double p90Millis,
+      double p99Millis,
+      double p999Millis,
+      double maxMillis,
+      double queriesMean,
+      long queriesP99,
+      long queriesMax) {
+
+    static WindowMetrics of(
+        Duration window, Histogram latencyMicros, Histogram queries, double seconds) {
+      long count = latencyMicros.getTotalCount();
+      return new WindowMetrics(
+          window.toString(),
+          count,
+          count / seconds,
+          millis(latencyMicros, 50.0),
+          millis(latencyMicros, 90.0),
+          millis(latencyMicros, 99.0),
+          millis(latencyMicros, 99.9),
+          count == 0 ? 0 : latencyMicros.getMaxValue() / 1_000.0,
+          count == 0 ? 0 : queries.getMean(),
+          count == 0 ? 0 : queries.getValueAtPercentile(99.0),
+          count == 0 ? 0 : queries.getMaxValue());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+      return histogram.getTotalCount() == 0
+          ? 0
+          : histogram.getValueAtPercentile(percentile) / 1_000.0;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package pl.edu.uj.notes.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * HDR histogram over a sliding window of fixed-length slices. Recording goes to a wait-free {@link
+ * Recorder} over fixed-size, non-packed histograms and never allocates; {@link #rotate()} copies
+ * the interval into a compact packed slice, and a window is the sum of the most recent slices.
+ */
+class SlidingHistogram {
+
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  private final long highestTrackableValue;
+  private final Recorder recorder;
+  private final Histogram[] slices;
+  private Histogram interval;
+  private int current;
+
+  SlidingHistogram(long highestTrackableValue, int slices) {
+    this.highestTrackableValue = highestTrackableValue;
+    this.recorder = new Recorder(1, highestTrackableValue, SIGNIFICANT_DIGITS, false);
+    this.slices = new Histogram[slices];
+  }
+
+  void record(long value) {
+    recorder.recordValue(Math.min(Math.max(value, 1), highestTrackableValue));
+  }
+
+  synchronized void rotate() {
+    interval = recorder.getIntervalHistogram(interval);
+    current = (current + 1) % slices.length;
+    if (slices[current] == null) {
+      slices[current] = new PackedHistogram(1, highestTrackableValue, SIGNIFICANT_DIGITS);
+    } else {
+      slices[current].reset();
+    }
+    slices[current].add(interval);
+  }
+
+  /** Merges the last {@code count} closed slices into a new histogram. */
+  synchronized Histogram window(int count) {
+    Histogram merged = new PackedHistogram(1, highestTrackableValue, SIGNIFICANT_DIGITS);
+    for (int i = 0; i < Math.min(count, slices.length); i++) {
+      Histogram slice = slices[Math.floorMod(current - i, slices.length)];
+      if (slice != null) {
+        merged.add(slice);
+      }
+    }
+    return merged;
+  }
+}
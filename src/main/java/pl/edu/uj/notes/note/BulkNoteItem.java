@@ -0,0 +1,5 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.validation.constraints.NotBlank;
+
+record BulkNoteItem(String id, @NotBlank String title, @NotBlank String content) {}
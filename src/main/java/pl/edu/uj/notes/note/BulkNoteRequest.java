@@ -0,0 +1,8 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+record BulkNoteRequest(@NotEmpty @Size(max = 5000) List<@Valid BulkNoteItem> items) {}
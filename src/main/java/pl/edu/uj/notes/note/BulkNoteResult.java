@@ -0,0 +1,22 @@
+package pl.edu.uj.notes.note;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record BulkNoteResult(int index, String id, Status status, String error) {
+
+  enum Status {
+    CREATED,
+    UPDATED,
+    UNCHANGED,
+    FAILED
+  }
+
+  static BulkNoteResult of(int index, String id, Status status) {
+    return new BulkNoteResult(index, id, status, null);
+  }
+
+  static BulkNoteResult failed(int index, String id, String error) {
+    return new BulkNoteResult(index, id, Status.FAILED, error);
+  }
+}
@@ -0,0 +1,194 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.authentication.PrincipalService;
+import pl.edu.uj.notes.authorization.AccessControlService;
+import pl.edu.uj.notes.authorization.Action;
+import pl.edu.uj.notes.note.BulkNoteResult.Status;
+import pl.edu.uj.notes.persistence.DatabasePlatform;
+import pl.edu.uj.notes.persistence.UuidKeys;
+import pl.edu.uj.notes.user.UserEntity;
+
+/**
+ * Creates and updates many notes in one transaction. Ids are assigned in the application, so every
+ * insert is left to Hibernate's JDBC batching instead of being flushed one by one, and search
+ * documents are written with one multi-row upsert without being loaded first.
+ */
+@Service
+@RequiredArgsConstructor
+class BulkNoteService {
+
+  private final PrincipalService principalService;
+  private final AccessControlService accessControlService;
+  private final NoteRepository noteRepository;
+  private final EntityManager entityManager;
+  private final SnapshotStore snapshotStore;
+  private final NoteCache noteCache;
+  private final DatabasePlatform databasePlatform;
+
+  @Transactional
+  List<BulkNoteResult> upsert(@NonNull List<BulkNoteItem> items) {
+    UserEntity subject = principalService.fetchCurrentUser();
+    Set<String> ids =
+        items.stream().map(BulkNoteItem::id).filter(Objects::nonNull).collect(Collectors.toSet());
+    Map<String, Note> existingNotes =
+        ids.isEmpty()
+            ? Map.of()
+            : noteRepository.findAllWithCurrentSnapshotByIdIn(ids).stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+    Set<String> seenIds = new HashSet<>();
+    List<SnapshotStore.Append> appends = new ArrayList<>();
+    List<NoteSearchDocument> documents = new ArrayList<>();
+    List<BulkNoteResult> results = new ArrayList<>(items.size());
+    for (int index = 0; index < items.size(); index++) {
+      BulkNoteItem item = items.get(index);
+      if (item.id() == null) {
+        results.add(create(index, UuidKeys.newId(), item, subject, appends, documents));
+      } else if (!isUuid(item.id())) {
+        results.add(BulkNoteResult.failed(index, item.id(), "Id must be a UUID"));
+      } else if (!seenIds.add(item.id())) {
+        results.add(BulkNoteResult.failed(index, item.id(), "Duplicate id in batch"));
+      } else if (existingNotes.containsKey(item.id())) {
+        Note note = existingNotes.get(item.id());
+        results.add(update(index, item, existingNotes.get(item.id()), subject, appends, documents));
+      } else {
+        results.add(create(index, item.id(), item, subject, appends, documents));
+      }
+    }
+
+    // Blob references for the whole batch are acquired together rather than flushed per note.
+    snapshotStore.appendAll(appends);
+    // Search documents reference their notes, so new notes have to be inserted first.
+    entityManager.flush();
+    upsertDocuments(documents);
+
+    return results;
+  }
+
+  private BulkNoteResult create(
+      int index,
+      String id,
+      BulkNoteItem item,
+      UserEntity owner,
+      List<SnapshotStore.Append> appends,
+      List<NoteSearchDocument> documents) {
+    Note note = new Note(item.title(), owner);
+    note.setId(id);
+    entityManager.persist(note);
+    appends.add(new SnapshotStore.Append(note, item.content()));
+    documents.add(new NoteSearchDocument(note, item.content()));
+
+    return BulkNoteResult.of(index, id, Status.CREATED);
+  }
+
+  private BulkNoteResult update(
+      int index,
+      BulkNoteItem item,
+      Note note,
+      UserEntity subject,
+      List<SnapshotStore.Append> appends,
+      List<NoteSearchDocument> documents) {
+    if (!note.isActive()) {
+      return BulkNoteResult.failed(index, note.getId(), "Note not found");
+    }
+
+    if (!accessControlService.userHasAccessTo(subject, note, Action.WRITE)) {
+      return BulkNoteResult.failed(index, note.getId(), "Access denied");
+    }
+
+    if (note.getCurrentSnapshot() == null) {
+      return BulkNoteResult.failed(index, note.getId(), "Note has no current snapshot");
+    }
+
+    boolean changed = false;
+    if (!StringUtils.equals(note.getTitle(), item.title())) {
+      note.setTitle(item.title());
+      changed = true;
+    }
+
+    String contentHash = SnapshotBlob.hash(item.content());
+    if (!contentHash.equals(note.getCurrentSnapshot().getContentHash())) {
+      appends.add(new SnapshotStore.Append(note, item.content()));
+      changed = true;
+    }
+
+    if (!changed) {
+      return BulkNoteResult.of(index, note.getId(), Status.UNCHANGED);
+    }
+
+    noteCache.invalidate(note.getId());
+    documents.add(new NoteSearchDocument(note, item.content()));
+
+    return BulkNoteResult.of(index, note.getId(), Status.UPDATED);
+  }
+
+  /**
+   * Inserts or rewrites the documents, at most {@link SnapshotStore#BLOB_STATEMENT_ROWS} per
+   * statement. PostgreSQL uses {@code ON CONFLICT}; other databases use {@code MERGE}.
+   */
+  private void upsertDocuments(List<NoteSearchDocument> documents) {
+    Instant updatedAt = Instant.now();
+    for (int from = 0; from < documents.size(); from += SnapshotStore.BLOB_STATEMENT_ROWS) {
+      List<NoteSearchDocument> chunk =
+          documents.subList(
+              from, Math.min(documents.size(), from + SnapshotStore.BLOB_STATEMENT_ROWS));
+      List<String> rows = new ArrayList<>();
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put("updatedAt", updatedAt);
+      for (int i = 0; i < chunk.size(); i++) {
+        rows.add(
+            databasePlatform.isPostgres()
+                ? "(:noteId%1$d, :title%1$d, :content%1$d, :updatedAt)".formatted(i)
+                : ("(CAST(:noteId%1$d AS uuid), CAST(:title%1$d AS varchar),"
+                        + " CAST(:content%1$d AS varchar))")
+                    .formatted(i));
+        parameters.put("noteId" + i, UuidKeys.toUuid(chunk.get(i).getNoteId()));
+        parameters.put("title" + i, chunk.get(i).getTitle());
+        parameters.put("content" + i, chunk.get(i).getContent());
+      }
+
+      String sql =
+          databasePlatform.isPostgres()
+              ? "INSERT INTO note_search_document (note_id, title, content, updated_at) VALUES "
+                  + String.join(", ", rows)
+                  + " ON CONFLICT (note_id) DO UPDATE SET title = EXCLUDED.title,"
+                  + " content = EXCLUDED.content, updated_at = EXCLUDED.updated_at"
+              : "MERGE INTO note_search_document d USING (VALUES "
+                  + String.join(", ", rows)
+                  + ") v (note_id, title, content) ON d.note_id = v.note_id"
+                  + " WHEN MATCHED THEN UPDATE"
+                  + " SET title = v.title, content = v.content, updated_at = :updatedAt"
+                  + " WHEN NOT MATCHED THEN INSERT (note_id, title, content, updated_at)"
+                  + " VALUES (v.note_id, v.title, v.content, :updatedAt)";
+      Query query = entityManager.createNativeQuery(sql);
+      parameters.forEach(query::setParameter);
+      query.executeUpdate();
+    }
+  }
+
+  private static boolean isUuid(String id) {
+    try {
+      return UUID.fromString(id).toString().equalsIgnoreCase(id);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
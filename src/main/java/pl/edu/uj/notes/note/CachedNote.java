@@ -0,0 +1,13 @@
+package pl.edu.uj.notes.note;
+
+/** Detached note kept for access checks together with the view served to clients. */
+record CachedNote(Note note, NoteDTO view) {
+
+  private static final int ENTRY_OVERHEAD = 512;
+
+  int weight() {
+    long content = view.content() == null ? 0 : 2L * view.content().length();
+    long title = view.title() == null ? 0 : 2L * view.title().length();
+    return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + content + title);
+  }
+}
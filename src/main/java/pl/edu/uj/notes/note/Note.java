@@ -2,19 +2,26 @@ package pl.edu.uj.notes.note;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Version;
 import java.time.Instant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.With;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import pl.edu.uj.notes.persistence.UuidKeys;
+import pl.edu.uj.notes.persistence.UuidStringType;
 import pl.edu.uj.notes.user.UserEntity;
 
 @Data
@@ -23,12 +30,14 @@ import pl.edu.uj.notes.user.UserEntity;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
-public class Note {
+public class Note implements Persistable<String> {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @Type(UuidStringType.class)
   private String id;
 
+  @Version private Long version;
+
   private String title;
 
   @CreatedDate private Instant createdAt;
@@ -43,8 +52,20 @@ public class Note {
   @JoinColumn(name = "owner_id")
   private UserEntity owner;
 
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @OneToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "current_snapshot_id")
+  private NoteSnapshot currentSnapshot;
+
   public Note(String title, UserEntity owner) {
+    this.id = UuidKeys.newId();
     this.title = title;
     this.owner = owner;
   }
+
+  @Override
+  public boolean isNew() {
+    return createdAt == null;
+  }
 }
@@ -0,0 +1,112 @@
+package pl.edu.uj.notes.note;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process cache of note id to the current note view, bounded by an estimate of retained bytes.
+ * Writers invalidate an entry right away and again once their transaction completes, so a reader
+ * that loaded the old row concurrently cannot leave it behind.
+ *
+ * <p>Loads run on the calling thread outside of any cache lock: concurrent readers of the same id
+ * wait on the in-flight future instead of a monitor, so a virtual thread blocked on JDBC does not
+ * pin its carrier.
+ */
+@Component
+class NoteCache {
+
+  private final AsyncCache<String, CachedNote> cache;
+  private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+
+  NoteCache(NoteCacheProperties properties) {
+    this.cache =
+        properties.enabled()
+            ? Caffeine.newBuilder()
+                .maximumWeight(properties.maximumWeight())
+                .weigher((String id, CachedNote note) -> note.weight())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats(() -> statsCounter)
+                .buildAsync()
+            : null;
+  }
+
+  CachedNote get(String id, Function<String, CachedNote> loader) {
+    if (cache == null) {
+      return loader.apply(id);
+    }
+
+    var loading = new CompletableFuture<CachedNote>();
+    var existing = cache.asMap().putIfAbsent(id, loading);
+    if (existing != null) {
+      statsCounter.recordHits(1);
+      return join(existing);
+    }
+
+    statsCounter.recordMisses(1);
+    try {
+      CachedNote loaded = loader.apply(id);
+      loading.complete(loaded);
+      return loaded;
+    } catch (RuntimeException e) {
+      cache.asMap().remove(id, loading);
+      loading.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  CachedNote getIfPresent(String id) {
+    return cache == null ? null : cache.synchronous().getIfPresent(id);
+  }
+
+  void invalidate(String id) {
+    if (cache == null) {
+      return;
+    }
+
+    cache.synchronous().invalidate(id);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              cache.synchronous().invalidate(id);
+            }
+          });
+    }
+  }
+
+  NoteCacheStats stats() {
+    if (cache == null) {
+      return new NoteCacheStats(false, 0, 0, 0, 0, 0, 0);
+    }
+
+    CacheStats stats = statsCounter.snapshot();
+    return new NoteCacheStats(
+        true,
+        cache.synchronous().estimatedSize(),
+        stats.hitCount(),
+        stats.missCount(),
+        stats.evictionCount(),
+        stats.evictionWeight(),
+        stats.hitRate());
+  }
+
+  private static CachedNote join(CompletableFuture<CachedNote> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package pl.edu.uj.notes.note;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("notes.cache")
+record NoteCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("67108864") long maximumWeight,
+    @DefaultValue("PT10M") Duration expireAfterWrite) {}
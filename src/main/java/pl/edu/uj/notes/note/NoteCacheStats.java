@@ -0,0 +1,10 @@
+package pl.edu.uj.notes.note;
+
+record NoteCacheStats(
+    boolean enabled,
+    long size,
+    long hits,
+    long misses,
+    long evictions,
+    long evictionWeight,
+    double hitRate) {}
@@ -5,10 +5,14 @@ import jakarta.validation.constraints.NotBlank;
 import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,6 +20,8 @@ import org.springframework.web.bind.annotation.*;
 class NoteController {
 
   private final NoteService noteService;
+  private final NoteExportService noteExportService;
+  private final BulkNoteService bulkNoteService;
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
@@ -24,39 +30,86 @@ class NoteController {
     return ResponseEntity.created(location).build();
   }
 
+  @PostMapping("/bulk")
+  @ResponseStatus(HttpStatus.OK)
+  ResponseEntity<List<BulkNoteResult>> bulkUpsertNotes(
+      @Valid @RequestBody BulkNoteRequest request) {
+    return ResponseEntity.ok(bulkNoteService.upsert(request.items()));
+  }
+
   @GetMapping("/{id}")
   @ResponseStatus(HttpStatus.OK)
-  ResponseEntity<NoteDTO> getNote(@PathVariable @NotBlank String id) {
-    return ResponseEntity.ok(noteService.getNote(id));
+  ResponseEntity<NoteDTO> getNote(
+      @PathVariable @NotBlank String id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    if (ifNoneMatch != null) {
+      long version = noteService.getNoteVersion(id);
+      if (NoteVersionTag.matchesAny(ifNoneMatch, version)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(NoteVersionTag.format(version))
+            .build();
+      }
+    }
+
+    NoteDTO note = noteService.getNote(id);
+    return ResponseEntity.ok().eTag(NoteVersionTag.format(note.version())).body(note);
   }
 
   @GetMapping()
   @ResponseStatus(HttpStatus.OK)
-  ResponseEntity<List<NoteDTO>> getAllNotes(
+  ResponseEntity<NotePage> getAllNotes(
       @RequestParam(required = false) String title,
       @RequestParam(required = false) String content,
-      @RequestParam(required = false) Boolean important) {
-    return ResponseEntity.ok(noteService.getAllNotes(title, content, important));
+      @RequestParam(required = false) Boolean important,
+      @RequestParam(required = false) String query,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      @RequestParam(defaultValue = "DESC") Sort.Direction direction) {
+    var pageRequest = new NotePageRequest(cursor, size, direction);
+    return ResponseEntity.ok(
+        noteService.getAllNotes(title, content, important, query, pageRequest));
+  }
+
+  @GetMapping("/cache/stats")
+  @ResponseStatus(HttpStatus.OK)
+  ResponseEntity<NoteCacheStats> getCacheStats() {
+    return ResponseEntity.ok(noteService.getCacheStats());
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  ResponseEntity<StreamingResponseBody> exportNotes(
+      @RequestParam(defaultValue = "false") boolean history,
+      @RequestParam(defaultValue = "false") boolean allUsers) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(noteExportService.export(history, allUsers));
   }
 
   @DeleteMapping
   @ResponseStatus(HttpStatus.NO_CONTENT)
-  ResponseEntity<Void> deleteNote(@Valid @RequestBody DeleteNoteRequest request) {
-    noteService.deleteNote(request);
+  ResponseEntity<Void> deleteNote(
+      @Valid @RequestBody DeleteNoteRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    noteService.deleteNote(request, NoteVersionTag.expectedVersion(ifMatch));
     return ResponseEntity.noContent().build();
   }
 
   @PutMapping("/{id}")
   @ResponseStatus(HttpStatus.ACCEPTED)
   ResponseEntity<NoteDTO> updateNote(
-      @PathVariable @NotBlank String id, @Validated @RequestBody CreateNoteRequest request) {
-    return ResponseEntity.accepted().body(noteService.updateNote(id, request));
+      @PathVariable @NotBlank String id,
+      @Validated @RequestBody CreateNoteRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    NoteDTO note = noteService.updateNote(id, request, NoteVersionTag.expectedVersion(ifMatch));
+    return ResponseEntity.accepted().eTag(NoteVersionTag.format(note.version())).body(note);
   }
 
   @PatchMapping("/{id}/important")
   @ResponseStatus(HttpStatus.NO_CONTENT)
-  ResponseEntity<Void> markAsImportant(@PathVariable @NotBlank String id) {
-    noteService.markAsImportant(id);
+  ResponseEntity<Void> markAsImportant(
+      @PathVariable @NotBlank String id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    noteService.markAsImportant(id, NoteVersionTag.expectedVersion(ifMatch));
     return ResponseEntity.noContent().build();
   }
 }
@@ -0,0 +1,41 @@
+package pl.edu.uj.notes.note;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import pl.edu.uj.notes.note.exception.InvalidCursorException;
+
+record NoteCursor(Instant updatedAt, String id) {
+
+  private static final String SEPARATOR = "|";
+
+  static NoteCursor of(Note note) {
+    return new NoteCursor(note.getUpdatedAt(), note.getId());
+  }
+
+  static NoteCursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), UTF_8);
+      int separator = decoded.indexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new InvalidCursorException();
+      }
+
+      return new NoteCursor(
+          Instant.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException();
+    }
+  }
+
+  String encode() {
+    String raw = updatedAt + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+  }
+}
@@ -9,24 +9,42 @@ public record NoteDTO(
     String content,
     Instant createdAt,
     Instant updatedAt,
-    boolean important) {
+    boolean important,
+    @JsonIgnore Long version) {
 
   public NoteDTO(Note note, NoteSnapshot snapshot) {
+    this(note, snapshot, snapshot.getContent());
+  }
+
+  /** For callers that already hold the snapshot's body, so its blob is not loaded again. */
+  public NoteDTO(Note note, NoteSnapshot snapshot, String content) {
+    this(
+        note.getId(),
+        note.getTitle(),
+        content,
+        note.getCreatedAt(),
+        getUpdatedAt(note, snapshot.getUpdatedAt()),
+        note.isImportant(),
+        note.getVersion());
+  }
+
+  public NoteDTO(Note note, NoteSearchDocument document) {
     this(
         note.getId(),
         note.getTitle(),
-        snapshot.getContent(),
+        document.getContent(),
         note.getCreatedAt(),
-        getUpdatedAt(note, snapshot),
-        note.isImportant());
+        getUpdatedAt(note, document.getUpdatedAt()),
+        note.isImportant(),
+        note.getVersion());
   }
 
   @JsonIgnore
-  private static Instant getUpdatedAt(Note note, NoteSnapshot noteSnapshot) {
-    if (note.getUpdatedAt().isAfter(noteSnapshot.getUpdatedAt())) {
+  private static Instant getUpdatedAt(Note note, Instant contentUpdatedAt) {
+    if (note.getUpdatedAt().isAfter(contentUpdatedAt)) {
       return note.getUpdatedAt();
     }
 
-    return noteSnapshot.getUpdatedAt();
+    return contentUpdatedAt;
   }
 }
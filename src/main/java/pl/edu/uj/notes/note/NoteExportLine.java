@@ -0,0 +1,29 @@
+package pl.edu.uj.notes.note;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record NoteExportLine(
+    String id,
+    String ownerId,
+    String title,
+    String content,
+    Instant createdAt,
+    Instant updatedAt,
+    boolean important,
+    List<SnapshotDTO> history) {
+
+  static NoteExportLine of(Note note, List<SnapshotDTO> history) {
+    return new NoteExportLine(
+        note.getId(),
+        note.getOwner().getId(),
+        note.getTitle(),
+        note.getCurrentSnapshot().getContent(),
+        note.getCreatedAt(),
+        note.getUpdatedAt(),
+        note.isImportant(),
+        history);
+  }
+}
@@ -0,0 +1,140 @@
+package pl.edu.uj.notes.note;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.edu.uj.notes.authentication.PrincipalService;
+import pl.edu.uj.notes.note.exception.UnauthorizedNoteAccessException;
+import pl.edu.uj.notes.user.UserEntity;
+
+/**
+ * Writes notes as NDJSON straight from a database cursor. The persistence context is cleared every
+ * {@link NoteRepository#EXPORT_FETCH_SIZE} rows so memory stays flat regardless of export size.
+ */
+@Service
+class NoteExportService {
+
+  private final PrincipalService principalService;
+  private final NoteRepository noteRepository;
+  private final NoteSnapshotRepository noteSnapshotRepository;
+  private final SnapshotStore snapshotStore;
+  private final EntityManager entityManager;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+
+  NoteExportService(
+      PrincipalService principalService,
+      NoteRepository noteRepository,
+      NoteSnapshotRepository noteSnapshotRepository,
+      SnapshotStore snapshotStore,
+      EntityManager entityManager,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager) {
+    this.principalService = principalService;
+    this.noteRepository = noteRepository;
+    this.noteSnapshotRepository = noteSnapshotRepository;
+    this.snapshotStore = snapshotStore;
+    this.entityManager = entityManager;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  StreamingResponseBody export(boolean includeHistory, boolean allUsers) {
+    UserEntity currentUser = principalService.fetchCurrentUser();
+    if (allUsers && !currentUser.isAdmin()) {
+      throw new UnauthorizedNoteAccessException();
+    }
+
+    String ownerId = allUsers ? null : currentUser.getId();
+    return outputStream ->
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              try (SequenceWriter writer = sequenceWriter(outputStream)) {
+                if (includeHistory) {
+                  writeNotesWithHistory(writer, ownerId);
+                } else {
+                  writeNotes(writer, ownerId);
+                }
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  private void writeNotes(SequenceWriter writer, String ownerId) throws IOException {
+    try (Stream<Note> notes =
+        ownerId == null
+            ? noteRepository.streamAllForExport()
+            : noteRepository.streamByOwnerForExport(ownerId)) {
+      Iterator<Note> iterator = notes.iterator();
+      long rows = 0;
+      while (iterator.hasNext()) {
+        writer.write(NoteExportLine.of(iterator.next(), null));
+        releaseBatch(writer, ++rows);
+      }
+    }
+  }
+
+  private void writeNotesWithHistory(SequenceWriter writer, String ownerId) throws IOException {
+    try (Stream<NoteSnapshot> snapshots =
+        ownerId == null
+            ? noteSnapshotRepository.streamAllForExport()
+            : noteSnapshotRepository.streamByOwnerForExport(ownerId)) {
+      Iterator<NoteSnapshot> iterator = snapshots.iterator();
+      Note pending = null;
+      List<NoteSnapshot> history = new ArrayList<>();
+      long rows = 0;
+      while (iterator.hasNext()) {
+        NoteSnapshot snapshot = iterator.next();
+        if (pending != null && !pending.getId().equals(snapshot.getNoteId().getId())) {
+          writer.write(NoteExportLine.of(pending, resolveHistory(history)));
+          history = new ArrayList<>();
+        }
+
+        pending = snapshot.getNoteId();
+        history.add(snapshot);
+        releaseBatch(writer, ++rows);
+      }
+
+      if (pending != null) {
+        writer.write(NoteExportLine.of(pending, resolveHistory(history)));
+      }
+    }
+  }
+
+  private List<SnapshotDTO> resolveHistory(List<NoteSnapshot> history) {
+    Map<String, String> contents = snapshotStore.contents(history);
+    return history.stream()
+        .map(snapshot -> SnapshotDTO.from(snapshot, contents.get(snapshot.getId())))
+        .toList();
+  }
+
+  private void releaseBatch(SequenceWriter writer, long rows) throws IOException {
+    if (rows % NoteRepository.EXPORT_FETCH_SIZE == 0) {
+      writer.flush();
+      entityManager.clear();
+    }
+  }
+
+  private SequenceWriter sequenceWriter(OutputStream outputStream) throws IOException {
+    return objectMapper
+        .writer()
+        .withRootValueSeparator("\n")
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .writeValues(outputStream);
+  }
+}
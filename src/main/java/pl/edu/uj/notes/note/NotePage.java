@@ -0,0 +1,5 @@
+package pl.edu.uj.notes.note;
+
+import java.util.List;
+
+record NotePage(List<NoteDTO> notes, String nextCursor) {}
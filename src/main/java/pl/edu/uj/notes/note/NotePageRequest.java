@@ -0,0 +1,14 @@
+package pl.edu.uj.notes.note;
+
+import org.springframework.data.domain.Sort;
+
+record NotePageRequest(String cursor, Integer size, Sort.Direction direction) {
+
+  NotePageRequest {
+    direction = direction == null ? Sort.Direction.DESC : direction;
+  }
+
+  static NotePageRequest firstPage() {
+    return new NotePageRequest(null, null, null);
+  }
+}
@@ -0,0 +1,17 @@
+package pl.edu.uj.notes.note;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("notes.pagination")
+record NotePaginationProperties(
+    @DefaultValue("50") int defaultPageSize, @DefaultValue("500") int maxPageSize) {
+
+  int resolvePageSize(Integer requested) {
+    if (requested == null || requested < 1) {
+      return defaultPageSize;
+    }
+
+    return Math.min(requested, maxPageSize);
+  }
+}
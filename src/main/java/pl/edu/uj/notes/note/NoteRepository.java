@@ -1,15 +1,64 @@
 package pl.edu.uj.notes.note;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
-interface NoteRepository extends JpaRepository<Note, String> {
+interface NoteRepository extends JpaRepository<Note, String>, JpaSpecificationExecutor<Note> {
+  int EXPORT_FETCH_SIZE = 500;
+
   List<Note> findAllByTitleContainingIgnoreCaseAndActiveIsTrue(String title);
 
   Optional<Note> findByActiveAndId(boolean active, String id);
 
+  @EntityGraph(attributePaths = {"owner", "currentSnapshot.blob"})
   Optional<Note> findByIdAndActiveIsTrue(String id);
+
+  @EntityGraph(attributePaths = "owner")
+  Optional<Note> findWithOwnerByIdAndActiveIsTrue(String id);
+
+  @EntityGraph(attributePaths = {"owner", "currentSnapshot.blob"})
+  List<Note> findAllWithCurrentSnapshotByIdIn(Collection<String> ids);
+
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      """
+      select n from Note n
+      join fetch n.owner
+      join fetch n.currentSnapshot c
+      left join fetch c.blob
+      where n.active = true and c.noteId = n
+      order by n.id
+      """)
+  Stream<Note> streamAllForExport();
+
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      """
+      select n from Note n
+      join fetch n.owner o
+      join fetch n.currentSnapshot c
+      left join fetch c.blob
+      where n.active = true and o.id = :ownerId and c.noteId = n
+      order by n.id
+      """)
+  Stream<Note> streamByOwnerForExport(String ownerId);
 }
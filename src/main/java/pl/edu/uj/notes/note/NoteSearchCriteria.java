@@ -0,0 +1,13 @@
+package pl.edu.uj.notes.note;
+
+import org.springframework.data.domain.Sort;
+
+record NoteSearchCriteria(
+    String ownerId,
+    boolean important,
+    String title,
+    String content,
+    String query,
+    NoteCursor after,
+    Sort.Direction direction,
+    int limit) {}
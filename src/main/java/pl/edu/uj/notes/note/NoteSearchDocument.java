@@ -0,0 +1,37 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import pl.edu.uj.notes.persistence.UuidStringType;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class NoteSearchDocument {
+
+  @Id
+  @Type(UuidStringType.class)
+  private String noteId;
+
+  private String title;
+
+  private String content;
+
+  @LastModifiedDate private Instant updatedAt;
+
+  public NoteSearchDocument(Note note, String content) {
+    this.noteId = note.getId();
+    this.title = note.getTitle();
+    this.content = content;
+  }
+}
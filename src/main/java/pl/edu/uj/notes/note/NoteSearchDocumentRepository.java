@@ -0,0 +1,31 @@
+package pl.edu.uj.notes.note;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+interface NoteSearchDocumentRepository extends ListCrudRepository<NoteSearchDocument, String> {
+
+  @Query(
+      """
+      select new pl.edu.uj.notes.note.NoteSearchHit(n, d)
+      from Note n join NoteSearchDocument d on d.noteId = n.id
+      where n.id in :noteIds
+      """)
+  List<NoteSearchHit> findAllHitsByNoteIds(Collection<String> noteIds);
+
+  /** Rewrites an existing document without loading it first. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      """
+      update NoteSearchDocument d
+      set d.title = :title, d.content = :content, d.updatedAt = :updatedAt
+      where d.noteId = :noteId
+      """)
+  int updateDocument(String noteId, String title, String content, Instant updatedAt);
+}
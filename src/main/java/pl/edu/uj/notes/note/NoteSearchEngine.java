@@ -0,0 +1,116 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import pl.edu.uj.notes.persistence.DatabasePlatform;
+import pl.edu.uj.notes.persistence.UuidKeys;
+
+/**
+ * Searches notes with one keyset-paginated query over {@code note_search_document}. PostgreSQL
+ * matches {@code query} against the GIN-indexed {@code search_vector}; other databases fall back
+ * to plain term matching.
+ */
+@Component
+@RequiredArgsConstructor
+class NoteSearchEngine {
+
+  private static final String LIKE_ESCAPE = "!";
+
+  private final EntityManager entityManager;
+  private final NoteSearchDocumentRepository searchDocumentRepository;
+  private final DatabasePlatform databasePlatform;
+
+  List<NoteSearchHit> search(NoteSearchCriteria criteria) {
+    List<String> noteIds = findMatchingNoteIds(criteria);
+    if (noteIds.isEmpty()) {
+      return List.of();
+    }
+
+    Map<String, NoteSearchHit> hits =
+        searchDocumentRepository.findAllHitsByNoteIds(noteIds).stream()
+            .collect(Collectors.toMap(hit -> hit.note().getId(), Function.identity()));
+
+    return noteIds.stream().map(hits::get).filter(Objects::nonNull).toList();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> findMatchingNoteIds(NoteSearchCriteria criteria) {
+    boolean fullText = StringUtils.isNotBlank(criteria.query()) && databasePlatform.isPostgres();
+    Map<String, Object> parameters = new HashMap<>();
+    StringBuilder sql =
+        new StringBuilder(
+            "SELECT n.id FROM note n JOIN note_search_document d ON d.note_id = n.id"
+                + " WHERE n.active = true AND n.important = :important");
+    parameters.put("important", criteria.important());
+
+    if (criteria.ownerId() != null) {
+      sql.append(" AND n.owner_id = :ownerId");
+      parameters.put("ownerId", UuidKeys.toUuid(criteria.ownerId()));
+    }
+
+    if (StringUtils.isNotEmpty(criteria.title())) {
+      sql.append(" AND lower(d.title) LIKE :title ESCAPE '").append(LIKE_ESCAPE).append("'");
+      parameters.put("title", containsPattern(criteria.title()));
+    }
+
+    if (StringUtils.isNotEmpty(criteria.content())) {
+      sql.append(" AND lower(d.content) LIKE :content ESCAPE '").append(LIKE_ESCAPE).append("'");
+      parameters.put("content", containsPattern(criteria.content()));
+    }
+
+    if (fullText) {
+      sql.append(" AND d.search_vector @@ websearch_to_tsquery('simple', :query)");
+      parameters.put("query", criteria.query());
+    } else if (StringUtils.isNotBlank(criteria.query())) {
+      String[] terms = StringUtils.split(criteria.query());
+      for (int i = 0; i < terms.length; i++) {
+        sql.append(" AND lower(concat(d.title, ' ', d.content)) LIKE :term")
+            .append(i)
+            .append(" ESCAPE '")
+            .append(LIKE_ESCAPE)
+            .append("'");
+        parameters.put("term" + i, containsPattern(terms[i]));
+      }
+    }
+
+    String comparison = criteria.direction().isAscending() ? ">" : "<";
+    if (criteria.after() != null) {
+      sql.append(" AND (n.updated_at ")
+          .append(comparison)
+          .append(" :afterUpdatedAt OR (n.updated_at = :afterUpdatedAt AND n.id ")
+          .append(comparison)
+          .append(" :afterId))");
+      parameters.put("afterUpdatedAt", criteria.after().updatedAt());
+      parameters.put("afterId", UuidKeys.toUuid(criteria.after().id()));
+    }
+
+    String direction = criteria.direction().isAscending() ? "ASC" : "DESC";
+    sql.append(" ORDER BY n.updated_at ").append(direction).append(", n.id ").append(direction);
+
+    Query query = entityManager.createNativeQuery(sql.toString(), UUID.class);
+    parameters.forEach(query::setParameter);
+    query.setMaxResults(criteria.limit());
+    return ((List<UUID>) query.getResultList()).stream().map(UuidKeys::toId).toList();
+  }
+
+  private static String containsPattern(String value) {
+    String escaped =
+        value
+            .toLowerCase(Locale.ROOT)
+            .replace(LIKE_ESCAPE, LIKE_ESCAPE + LIKE_ESCAPE)
+            .replace("%", LIKE_ESCAPE + "%")
+            .replace("_", LIKE_ESCAPE + "_");
+    return "%" + escaped + "%";
+  }
+}
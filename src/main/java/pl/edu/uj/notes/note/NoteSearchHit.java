@@ -0,0 +1,3 @@
+package pl.edu.uj.notes.note;
+
+public record NoteSearchHit(Note note, NoteSearchDocument document) {}
@@ -1,110 +1,192 @@
 package pl.edu.uj.notes.note;
 
-import jakarta.transaction.Transactional;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.edu.uj.notes.authentication.PrincipalService;
 import pl.edu.uj.notes.authorization.AccessControlService;
 import pl.edu.uj.notes.authorization.Action;
 import pl.edu.uj.notes.note.exception.NoteNotFoundException;
 import pl.edu.uj.notes.note.exception.NoteSnapshotNotFoundException;
+import pl.edu.uj.notes.note.exception.NoteVersionMismatchException;
 import pl.edu.uj.notes.note.exception.UnauthorizedNoteAccessException;
 
 @Component
-@RequiredArgsConstructor
 public class NoteService {
 
   private final PrincipalService principalService;
   private final NoteRepository noteRepository;
   private final NoteSnapshotRepository noteSnapshotRepository;
   private final AccessControlService accessControlService;
+  private final NoteSearchDocumentRepository searchDocumentRepository;
+  private final NoteSearchEngine noteSearchEngine;
+  private final NotePaginationProperties paginationProperties;
+  private final SnapshotStore snapshotStore;
+  private final NoteCache noteCache;
+  private final TransactionTemplate cacheFillTemplate;
+
+  NoteService(
+      PrincipalService principalService,
+      NoteRepository noteRepository,
+      NoteSnapshotRepository noteSnapshotRepository,
+      AccessControlService accessControlService,
+      NoteSearchDocumentRepository searchDocumentRepository,
+      NoteSearchEngine noteSearchEngine,
+      NotePaginationProperties paginationProperties,
+      SnapshotStore snapshotStore,
+      NoteCache noteCache,
+      PlatformTransactionManager transactionManager) {
+    this.principalService = principalService;
+    this.noteRepository = noteRepository;
+    this.noteSnapshotRepository = noteSnapshotRepository;
+    this.accessControlService = accessControlService;
+    this.searchDocumentRepository = searchDocumentRepository;
+    this.noteSearchEngine = noteSearchEngine;
+    this.paginationProperties = paginationProperties;
+    this.snapshotStore = snapshotStore;
+    this.noteCache = noteCache;
+    // Read-write on purpose: read-only work may be routed to a lagging replica, and a view cached
+    // from one would be served to every reader, even those holding a consistency token.
+    this.cacheFillTemplate = new TransactionTemplate(transactionManager);
+  }
 
   @Transactional
   String createNote(@NonNull CreateNoteRequest request) {
     Note note = new Note(request.title(), principalService.fetchCurrentUser());
     note = noteRepository.save(note);
 
-    NoteSnapshot noteSnapshot = new NoteSnapshot(note, request.content());
-    noteSnapshotRepository.save(noteSnapshot);
+    snapshotStore.append(note, request.content());
+    searchDocumentRepository.save(new NoteSearchDocument(note, request.content()));
     return note.getId();
   }
 
-  NoteDTO updateNote(@NonNull String id, @NonNull CreateNoteRequest request) {
-    Note note = getNoteWithAccessControl(id, Action.WRITE);
+  @Transactional
+  NoteDTO updateNote(@NonNull String id, @NonNull CreateNoteRequest request, Long expectedVersion) {
+    Note note = getNoteWithAccessControl(id, Action.WRITE, expectedVersion);
+    noteCache.invalidate(id);
+    boolean changed = false;
+
+    // Appending flushes before its blob upsert; the title goes in afterwards so the note is
+    // updated once.
+    NoteSnapshot latestSnapshot = latestSnapshot(note);
+    if (!latestSnapshot.getContentHash().equals(SnapshotBlob.hash(request.content()))) {
+      latestSnapshot = snapshotStore.append(note, request.content());
+      changed = true;
+    }
 
     if (!StringUtils.equals(note.getTitle(), request.title())) {
       note.setTitle(request.title());
-      note = noteRepository.save(note);
+      changed = true;
     }
 
-    NoteSnapshot latestSnapshot = latestSnapshot(note);
-    if (!latestSnapshot.getContent().equals(request.content())) {
-      NoteSnapshot newSnapshot = new NoteSnapshot(note, request.content());
-      latestSnapshot = noteSnapshotRepository.save(newSnapshot);
+    if (changed) {
+      note = saveAndFlush(note);
+      searchDocumentRepository.updateDocument(
+          note.getId(), note.getTitle(), request.content(), Instant.now());
     }
 
-    return new NoteDTO(note, latestSnapshot);
+    return new NoteDTO(note, latestSnapshot, request.content());
   }
 
-  void deleteNote(@NonNull DeleteNoteRequest request) {
-    Note note = getNoteWithAccessControl(request.id(), Action.WRITE);
+  @Transactional
+  void deleteNote(@NonNull DeleteNoteRequest request, Long expectedVersion) {
+    Note note = getNoteWithAccessControl(request.id(), Action.WRITE, expectedVersion);
+    noteCache.invalidate(note.getId());
     note.setActive(false);
-    noteRepository.save(note);
+    saveAndFlush(note);
   }
 
-  public void markAsImportant(@NonNull String id) {
-    Note note = getNoteWithAccessControl(id, Action.WRITE);
+  @Transactional
+  public void markAsImportant(@NonNull String id, Long expectedVersion) {
+    Note note = getNoteWithAccessControl(id, Action.WRITE, expectedVersion);
+    noteCache.invalidate(id);
 
     note.setImportant(true);
-    noteRepository.save(note);
+    saveAndFlush(note);
   }
 
   NoteDTO getNote(@NonNull String id) {
-    Note note = getNoteWithAccessControl(id, Action.READ);
+    CachedNote cached = noteCache.get(id, this::loadNote);
+    if (!accessControlService.userHasAccessTo(cached.note(), Action.READ)) {
+      throw new UnauthorizedNoteAccessException();
+    }
 
-    return new NoteDTO(note, latestSnapshot(note));
+    return cached.view();
   }
 
-  List<NoteDTO> getAllNotes(String title, String content, Boolean important) {
-    title = title == null ? "" : title;
-    content = content == null ? "" : content;
-    important = important != null && important;
-
-    List<Note> notes =
-        noteRepository.findAllByTitleContainingIgnoreCaseAndActiveIsTrue(title).stream()
-            .filter(note -> accessControlService.userHasAccessTo(note, Action.READ))
-            .toList();
+  long getNoteVersion(@NonNull String id) {
+    CachedNote cached = noteCache.getIfPresent(id);
+    if (cached != null && accessControlService.userHasAccessTo(cached.note(), Action.READ)) {
+      return cached.view().version();
+    }
 
-    if (important) {
-      notes = notes.stream().filter(Note::isImportant).toList();
-    } else {
-      notes = notes.stream().filter(note -> !note.isImportant()).toList();
+    var note =
+        noteRepository
+            .findWithOwnerByIdAndActiveIsTrue(id)
+            .orElseThrow(NoteNotFoundException::new);
+    if (!accessControlService.userHasAccessTo(note, Action.READ)) {
+      throw new UnauthorizedNoteAccessException();
     }
 
-    Map<Note, NoteSnapshot> noteSnapshotMap = new HashMap<>();
-    for (Note note : notes) {
-      NoteSnapshot snapshot = latestSnapshot(note);
-      if (snapshot.getContent().toLowerCase().contains(content.toLowerCase())) {
-        noteSnapshotMap.put(note, snapshot);
-      }
+    return note.getVersion();
+  }
+
+  @Transactional(readOnly = true)
+  NotePage getAllNotes(
+      String title,
+      String content,
+      Boolean important,
+      String query,
+      @NonNull NotePageRequest pageRequest) {
+    int pageSize = paginationProperties.resolvePageSize(pageRequest.size());
+    var criteria =
+        new NoteSearchCriteria(
+            accessControlService.noteOwnerRestriction(Action.READ).orElse(null),
+            important != null && important,
+            title,
+            content,
+            query,
+            NoteCursor.decode(pageRequest.cursor()),
+            pageRequest.direction(),
+            pageSize + 1);
+
+    List<NoteSearchHit> hits = noteSearchEngine.search(criteria);
+    boolean hasNext = hits.size() > pageSize;
+    if (hasNext) {
+      hits = hits.subList(0, pageSize);
     }
 
-    return noteSnapshotMap.entrySet().stream()
-        .map(entry -> new NoteDTO(entry.getKey(), entry.getValue()))
-        .toList();
+    List<NoteDTO> notes =
+        hits.stream()
+            .filter(hit -> accessControlService.userHasAccessTo(hit.note(), Action.READ))
+            .map(hit -> new NoteDTO(hit.note(), hit.document()))
+            .toList();
+    String nextCursor = hasNext ? NoteCursor.of(hits.getLast().note()).encode() : null;
+
+    return new NotePage(notes, nextCursor);
   }
 
   public List<NoteDTO> getNoteDTOs(@NonNull List<Note> notes) {
+    Map<String, NoteSnapshot> currentSnapshots = currentSnapshots(notes);
     List<NoteDTO> noteDTOs = new ArrayList<>();
     for (Note note : notes) {
-      NoteSnapshot noteSnapshot = latestSnapshot(note);
+      NoteSnapshot noteSnapshot = currentSnapshots.get(note.getId());
+      if (noteSnapshot == null) {
+        throw new NoteSnapshotNotFoundException();
+      }
       noteDTOs.add(
           new NoteDTO(
               note.getId(),
@@ -112,29 +194,90 @@ public class NoteService {
               noteSnapshot.getContent(),
               note.getCreatedAt(),
               note.getUpdatedAt(),
-              note.isImportant()));
+              note.isImportant(),
+              note.getVersion()));
+    }
+    return noteDTOs;
+  }
+
+  /** Loads the given notes with their current snapshots in a single query, keyed by note id. */
+  public Map<String, NoteDTO> getNoteDTOsByIds(@NonNull Collection<String> noteIds) {
+    if (noteIds.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, NoteDTO> noteDTOs = new HashMap<>();
+    for (Note note : noteRepository.findAllWithCurrentSnapshotByIdIn(noteIds)) {
+      if (note.getCurrentSnapshot() == null) {
+        throw new NoteSnapshotNotFoundException();
+      }
+      noteDTOs.put(note.getId(), new NoteDTO(note, note.getCurrentSnapshot()));
     }
     return noteDTOs;
   }
 
   public List<Note> getNotes(@NonNull List<String> noteIds) {
-    return noteRepository.findAllById(noteIds).stream()
+    if (noteIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Specification<Note> requested = (root, query, cb) -> root.get("id").in(noteIds);
+    Specification<Note> readable = accessControlService.noteSpecification(Action.READ);
+    return noteRepository.findAll(requested.and(readable)).stream()
         .filter(note -> accessControlService.userHasAccessTo(note, Action.READ))
         .collect(Collectors.toCollection(ArrayList::new));
   }
 
-  private Note getNoteWithAccessControl(String id, Action action) {
+  NoteCacheStats getCacheStats() {
+    if (!principalService.fetchCurrentUser().isAdmin()) {
+      throw new UnauthorizedNoteAccessException();
+    }
+
+    return noteCache.stats();
+  }
+
+  private CachedNote loadNote(String id) {
+    return cacheFillTemplate.execute(
+        status -> {
+          var note =
+              noteRepository.findByIdAndActiveIsTrue(id).orElseThrow(NoteNotFoundException::new);
+          return new CachedNote(note, new NoteDTO(note, latestSnapshot(note)));
+        });
+  }
+
+  private Note getNoteWithAccessControl(String id, Action action, Long expectedVersion) {
     var note = noteRepository.findByIdAndActiveIsTrue(id).orElseThrow(NoteNotFoundException::new);
     if (!accessControlService.userHasAccessTo(note, action)) {
       throw new UnauthorizedNoteAccessException();
     }
 
+    if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+      throw new NoteVersionMismatchException();
+    }
+
     return note;
   }
 
+  private Note saveAndFlush(Note note) {
+    try {
+      return noteRepository.saveAndFlush(note);
+    } catch (OptimisticLockingFailureException e) {
+      throw new NoteVersionMismatchException();
+    }
+  }
+
   private NoteSnapshot latestSnapshot(Note note) {
-    return noteSnapshotRepository
-        .findFirstByNoteIdOrderByCreatedAtDesc(note)
-        .orElseThrow(NoteSnapshotNotFoundException::new);
+    if (note.getCurrentSnapshot() == null) {
+      throw new NoteSnapshotNotFoundException();
+    }
+
+    return note.getCurrentSnapshot();
+  }
+
+  private Map<String, NoteSnapshot> currentSnapshots(List<Note> notes) {
+    List<String> noteIds = notes.stream().map(Note::getId).toList();
+
+    return noteSnapshotRepository.findAllCurrentByNoteIds(noteIds).stream()
+        .collect(Collectors.toMap(snapshot -> snapshot.getNoteId().getId(), Function.identity()));
   }
 }
@@ -1,20 +1,29 @@
 package pl.edu.uj.notes.note;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import java.time.Instant;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.With;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import pl.edu.uj.notes.persistence.UuidKeys;
+import pl.edu.uj.notes.persistence.UuidStringType;
 
 @Data
 @With
@@ -22,24 +31,67 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
-public class NoteSnapshot {
+public class NoteSnapshot implements Persistable<String> {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @Type(UuidStringType.class)
   private String id;
 
   @ManyToOne
   @JoinColumn(name = "noteId")
   private Note noteId;
 
-  private String content;
+  /** Read-only copy of {@code note_id} so updates and deletes prune to the note's partition. */
+  @PartitionKey
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Setter(AccessLevel.NONE)
+  @Type(UuidStringType.class)
+  @Column(name = "note_id", insertable = false, updatable = false)
+  private String partitionKey;
+
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "content_hash")
+  private SnapshotBlob blob;
+
+  @Type(UuidStringType.class)
+  private String baseSnapshotId;
+
+  private String delta;
+
+  private int chainDepth;
 
   @CreatedDate private Instant createdAt;
 
   @LastModifiedDate private Instant updatedAt;
 
-  public NoteSnapshot(Note noteId, String content) {
+  public NoteSnapshot(Note noteId, SnapshotBlob blob) {
+    this.id = UuidKeys.newId();
+    this.blob = blob;
+    setNoteId(noteId);
+  }
+
+  public void setNoteId(Note noteId) {
     this.noteId = noteId;
-    this.content = content;
+    this.partitionKey = noteId == null ? null : noteId.getId();
+  }
+
+  public String getContent() {
+    return blob == null ? null : blob.getContent();
+  }
+
+  public String getContentHash() {
+    return blob == null ? null : blob.getHash();
+  }
+
+  public boolean isKeyframe() {
+    return baseSnapshotId == null;
+  }
+
+  @Override
+  public boolean isNew() {
+    return createdAt == null;
   }
 }
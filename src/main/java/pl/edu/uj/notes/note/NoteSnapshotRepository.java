@@ -1,13 +1,94 @@
 package pl.edu.uj.notes.note;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * On PostgreSQL {@code note_snapshot} is hash-partitioned by {@code note_id}; queries filter on it
+ * so they read only the partitions of the notes involved.
+ */
 @Repository
 interface NoteSnapshotRepository extends ListCrudRepository<NoteSnapshot, String> {
   Optional<NoteSnapshot> findFirstByNoteIdOrderByCreatedAtDesc(Note note);
 
+  Optional<NoteSnapshot> findByNoteIdAndId(Note note, String id);
+
+  @EntityGraph(attributePaths = "blob")
   List<NoteSnapshot> findAllByNoteId(Note note);
+
+  @Query(
+      """
+      select s from NoteSnapshot s
+      join fetch s.noteId n
+      left join fetch n.owner
+      left join fetch s.blob
+      where s.noteId.id in :noteIds and n.currentSnapshot = s
+      """)
+  List<NoteSnapshot> findAllCurrentByNoteIds(Collection<String> noteIds);
+
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "" + NoteRepository.EXPORT_FETCH_SIZE),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      """
+      select s from NoteSnapshot s
+      join fetch s.noteId n
+      join fetch n.owner
+      join fetch n.currentSnapshot c
+      left join fetch c.blob
+      left join fetch s.blob
+      where n.active = true and c.noteId = n
+      order by n.id, s.createdAt
+      """)
+  Stream<NoteSnapshot> streamAllForExport();
+
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "" + NoteRepository.EXPORT_FETCH_SIZE),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      """
+      select s from NoteSnapshot s
+      join fetch s.noteId n
+      join fetch n.owner o
+      join fetch n.currentSnapshot c
+      left join fetch c.blob
+      left join fetch s.blob
+      where n.active = true and o.id = :ownerId and c.noteId = n
+      order by n.id, s.createdAt
+      """)
+  Stream<NoteSnapshot> streamByOwnerForExport(String ownerId);
+
+  @Query(
+      """
+      select distinct s.noteId.id from NoteSnapshot s
+      where s.createdAt > :from and s.createdAt <= :to and s.noteId.id > :afterId
+      order by s.noteId.id
+      """)
+  List<String> findNoteIdsWithSnapshotsCreatedBetween(
+      Instant from, Instant to, String afterId, Limit limit);
+
+  /** Leaves blobs unloaded so that callers read only the bodies they need. */
+  @Query(
+      """
+      select s from NoteSnapshot s
+      join fetch s.noteId n
+      where s.noteId.id in :noteIds
+      order by n.id, s.createdAt
+      """)
+  List<NoteSnapshot> findAllHistoryByNoteIds(Collection<String> noteIds);
 }
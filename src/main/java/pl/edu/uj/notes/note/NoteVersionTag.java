@@ -0,0 +1,45 @@
+package pl.edu.uj.notes.note;
+
+import org.apache.commons.lang3.StringUtils;
+import pl.edu.uj.notes.note.exception.NoteVersionMismatchException;
+
+/** Maps {@link Note#getVersion()} to and from the entity tags used in conditional requests. */
+final class NoteVersionTag {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+
+  private NoteVersionTag() {}
+
+  static String format(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /** Returns the version required by {@code If-Match}, or {@code null} when any version will do. */
+  static Long expectedVersion(String ifMatch) {
+    if (StringUtils.isBlank(ifMatch) || ANY.equals(ifMatch.trim())) {
+      return null;
+    }
+
+    try {
+      return Long.parseLong(StringUtils.strip(ifMatch.trim(), "\""));
+    } catch (NumberFormatException e) {
+      throw new NoteVersionMismatchException();
+    }
+  }
+
+  static boolean matchesAny(String ifNoneMatch, long version) {
+    if (StringUtils.isBlank(ifNoneMatch)) {
+      return false;
+    }
+
+    String current = format(version);
+    for (String tag : ifNoneMatch.split(",")) {
+      String candidate = StringUtils.removeStart(tag.trim(), WEAK_PREFIX);
+      if (ANY.equals(candidate) || current.equals(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
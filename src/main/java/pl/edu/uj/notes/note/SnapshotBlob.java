@@ -0,0 +1,62 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * Snapshot body stored once per distinct content and keyed by its SHA-256 hash. {@code
+ * referenceCount} counts the snapshots that point at it.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class SnapshotBlob implements Persistable<String> {
+
+  @Id private String hash;
+
+  @ToString.Exclude private String content;
+
+  private long referenceCount;
+
+  @CreatedDate private Instant createdAt;
+
+  public SnapshotBlob(String content) {
+    this.hash = hash(content);
+    this.content = content;
+    this.referenceCount = 1;
+  }
+
+  public static String hash(String content) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public String getId() {
+    return hash;
+  }
+
+  @Override
+  public boolean isNew() {
+    return createdAt == null;
+  }
+}
@@ -0,0 +1,108 @@
+package pl.edu.uj.notes.note;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Moves inline {@code note_snapshot.content} into {@code snapshot_blob}. Hashing happens here
+ * rather than in SQL so existing rows get exactly the hashes {@link SnapshotBlob#hash(String)}
+ * produces. Rows are read in keyset-ordered batches and only unlinked rows are picked up, so memory
+ * stays bounded and an interrupted run can be resumed.
+ */
+public class SnapshotBlobMigration implements CustomTaskChange {
+
+  private static final String SELECT_SQL =
+      "SELECT id, content FROM note_snapshot"
+          + " WHERE content IS NOT NULL AND content_hash IS NULL AND id > ?"
+          + " ORDER BY id FETCH FIRST ? ROWS ONLY";
+
+  private int batchSize = 1000;
+  private int updated;
+
+  public void setBatchSize(String batchSize) {
+    this.batchSize = Integer.parseInt(batchSize);
+  }
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    try (PreparedStatement select = connection.prepareStatement(SELECT_SQL);
+        PreparedStatement increment =
+            connection.prepareStatement(
+                "UPDATE snapshot_blob SET reference_count = reference_count + ? WHERE hash = ?");
+        PreparedStatement insert =
+            connection.prepareStatement(
+                "INSERT INTO snapshot_blob (hash, content, reference_count, created_at)"
+                    + " VALUES (?, ?, ?, CURRENT_TIMESTAMP)");
+        PreparedStatement link =
+            connection.prepareStatement("UPDATE note_snapshot SET content_hash = ? WHERE id = ?")) {
+      select.setFetchSize(batchSize);
+      String lastId = "";
+      while (true) {
+        select.setString(1, lastId);
+        select.setInt(2, batchSize);
+
+        Map<String, String> contents = new LinkedHashMap<>();
+        Map<String, Integer> references = new HashMap<>();
+        try (ResultSet rows = select.executeQuery()) {
+          while (rows.next()) {
+            String content = rows.getString("content");
+            String hash = SnapshotBlob.hash(content);
+            contents.putIfAbsent(hash, content);
+            references.merge(hash, 1, Integer::sum);
+
+            lastId = rows.getString("id");
+            link.setString(1, hash);
+            link.setString(2, lastId);
+            link.addBatch();
+          }
+        }
+        if (contents.isEmpty()) {
+          return;
+        }
+
+        for (Map.Entry<String, String> blob : contents.entrySet()) {
+          int count = references.get(blob.getKey());
+          increment.setInt(1, count);
+          increment.setString(2, blob.getKey());
+          if (increment.executeUpdate() == 0) {
+            insert.setString(1, blob.getKey());
+            insert.setString(2, blob.getValue());
+            insert.setInt(3, count);
+            insert.executeUpdate();
+          }
+        }
+        updated += link.executeBatch().length;
+      }
+    } catch (SQLException e) {
+      throw new CustomChangeException(e);
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Moved " + updated + " snapshot bodies into snapshot_blob";
+  }
+
+  @Override
+  public void setUp() {}
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    return new ValidationErrors();
+  }
+}
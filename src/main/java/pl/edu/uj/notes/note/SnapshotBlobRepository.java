@@ -0,0 +1,54 @@
+package pl.edu.uj.notes.note;
+
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+interface SnapshotBlobRepository extends JpaRepository<SnapshotBlob, String> {
+
+  @Modifying(flushAutomatically = true)
+  @Query(
+      """
+      update SnapshotBlob b set b.referenceCount = b.referenceCount + :delta
+      where b.hash = :hash
+      """)
+  int adjustReferenceCount(String hash, long delta);
+
+  /** Inserts the blob or counts one more reference to it, even when writers race on the hash. */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      value =
+          """
+          INSERT INTO snapshot_blob (hash, content, reference_count, created_at)
+          VALUES (:hash, :content, 1, CURRENT_TIMESTAMP)
+          ON CONFLICT (hash) DO UPDATE SET reference_count = snapshot_blob.reference_count + 1
+          """,
+      nativeQuery = true)
+  int upsertReference(String hash, String content);
+
+  /** {@link #upsertReference} for databases without {@code ON CONFLICT}. */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      value =
+          """
+          MERGE INTO snapshot_blob b
+          USING (SELECT CAST(:hash AS varchar(64)) AS hash, CAST(:content AS varchar) AS content) v
+          ON b.hash = v.hash
+          WHEN MATCHED THEN UPDATE SET reference_count = b.reference_count + 1
+          WHEN NOT MATCHED THEN INSERT (hash, content, reference_count, created_at)
+            VALUES (v.hash, v.content, 1, CURRENT_TIMESTAMP)
+          """,
+      nativeQuery = true)
+  int mergeReference(String hash, String content);
+
+  @Query("select b from SnapshotBlob b where b.referenceCount <= 0 order by b.hash")
+  List<SnapshotBlob> findUnreferenced(Limit limit);
+
+  @Modifying(flushAutomatically = true)
+  @Query("delete from SnapshotBlob b where b.hash = :hash and b.referenceCount <= 0")
+  int deleteIfUnreferenced(String hash);
+}
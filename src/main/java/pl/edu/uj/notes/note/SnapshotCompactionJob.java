@@ -0,0 +1,236 @@
+package pl.edu.uj.notes.note;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.edu.uj.notes.note.SnapshotRetentionProperties.Tier;
+import pl.edu.uj.notes.persistence.UuidKeys;
+
+/**
+ * Applies {@link SnapshotRetentionProperties} to snapshot history. Every batch of notes is
+ * compacted in its own short transaction, and the current snapshot of a note is never removed.
+ * Blobs no longer referenced by any snapshot are swept at the end of each run.
+ *
+ * <p>A run only visits notes with a snapshot that crossed a tier boundary since the previous run.
+ * That watermark lives in memory, so the first run after a start visits every note with history
+ * past the first tier.
+ */
+@Slf4j
+@Component
+class SnapshotCompactionJob {
+
+  private final NoteSnapshotRepository snapshotRepository;
+  private final SnapshotBlobRepository blobRepository;
+  private final SnapshotStore snapshotStore;
+  private final SnapshotRetentionProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private Instant compactedThrough;
+
+  SnapshotCompactionJob(
+      NoteSnapshotRepository snapshotRepository,
+      SnapshotBlobRepository blobRepository,
+      SnapshotStore snapshotStore,
+      SnapshotRetentionProperties properties,
+      PlatformTransactionManager transactionManager) {
+    this.snapshotRepository = snapshotRepository;
+    this.blobRepository = blobRepository;
+    this.snapshotStore = snapshotStore;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Scheduled(
+      initialDelayString = "${notes.snapshots.retention.run-interval:PT1H}",
+      fixedDelayString = "${notes.snapshots.retention.run-interval:PT1H}")
+  void run() {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    Instant now = Instant.now();
+    SnapshotCompactionReport report = compact(compactedThrough, now);
+    compactedThrough = now;
+    log.info(
+        "Snapshot compaction scanned {} notes, deleted {} snapshots and {} blobs,"
+            + " reclaimed {} bytes",
+        report.notesScanned(),
+        report.snapshotsDeleted(),
+        report.blobsDeleted(),
+        report.bytesReclaimed());
+  }
+
+  /**
+   * Compacts the notes with a snapshot that crossed a tier boundary in {@code (since, now]}, or
+   * every note with a snapshot past the first tier when {@code since} is {@code null}.
+   */
+  SnapshotCompactionReport compact(Instant since, Instant now) {
+    SnapshotCompactionReport report = new SnapshotCompactionReport(0, 0, 0, 0);
+
+    for (Window window : windows(since, now)) {
+      String afterId = UuidKeys.NIL_ID;
+      List<String> noteIds;
+      do {
+        noteIds =
+            snapshotRepository.findNoteIdsWithSnapshotsCreatedBetween(
+                window.from(), window.to(), afterId, Limit.of(properties.batchSize()));
+        if (!noteIds.isEmpty()) {
+          List<String> batch = noteIds;
+          report = report.plus(transactionTemplate.execute(status -> compactNotes(batch, now)));
+          afterId = noteIds.getLast();
+        }
+      } while (noteIds.size() == properties.batchSize());
+    }
+
+    List<SnapshotBlob> blobs;
+    do {
+      blobs = blobRepository.findUnreferenced(Limit.of(properties.batchSize()));
+      if (!blobs.isEmpty()) {
+        List<SnapshotBlob> batch = blobs;
+        report = report.plus(transactionTemplate.execute(status -> sweepBlobs(batch)));
+      }
+    } while (blobs.size() == properties.batchSize());
+
+    return report;
+  }
+
+  /** Creation times of the snapshots that entered a tier in {@code (since, now]}. */
+  private List<Window> windows(Instant since, Instant now) {
+    if (since == null) {
+      return List.of(new Window(Instant.EPOCH, now.minus(properties.tiers().getFirst().after())));
+    }
+
+    return properties.tiers().stream()
+        .map(tier -> new Window(since.minus(tier.after()), now.minus(tier.after())))
+        .toList();
+  }
+
+  private SnapshotCompactionReport compactNotes(List<String> noteIds, Instant now) {
+    Map<String, List<NoteSnapshot>> histories =
+        snapshotRepository.findAllHistoryByNoteIds(noteIds).stream()
+            .collect(
+                Collectors.groupingBy(
+                    snapshot -> snapshot.getNoteId().getId(),
+                    LinkedHashMap::new,
+                    Collectors.toList()));
+
+    List<Compaction> compactions = new ArrayList<>();
+    Set<String> hashes = new HashSet<>();
+    for (List<NoteSnapshot> history : histories.values()) {
+      Set<String> kept = retained(history, now);
+      if (kept.size() == history.size()) {
+        continue;
+      }
+
+      Set<String> bases =
+          history.stream()
+              .map(NoteSnapshot::getBaseSnapshotId)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toSet());
+      for (NoteSnapshot snapshot : history) {
+        if (snapshot.getBlob() != null
+            && (kept.contains(snapshot.getId()) || bases.contains(snapshot.getId()))) {
+          hashes.add(snapshot.getContentHash());
+        }
+      }
+      compactions.add(new Compaction(history, kept));
+    }
+    // Loads the bodies survivors are resolved from in one query. Blobs of snapshots that are only
+    // deleted stay unloaded; releasing them needs nothing but the hash.
+    blobRepository.findAllById(hashes);
+
+    int deleted = 0;
+    long bytes = 0;
+    for (Compaction compaction : compactions) {
+      List<NoteSnapshot> history = compaction.history();
+      Set<String> kept = compaction.kept();
+      List<NoteSnapshot> survivors = new ArrayList<>();
+      List<NoteSnapshot> removed = new ArrayList<>();
+      for (NoteSnapshot snapshot : history) {
+        if (kept.contains(snapshot.getId())) {
+          survivors.add(snapshot);
+        } else {
+          removed.add(snapshot);
+        }
+      }
+
+      Map<String, String> contents = snapshotStore.contents(survivors, history);
+      for (NoteSnapshot snapshot : removed) {
+        if (snapshot.getDelta() != null) {
+          bytes += snapshot.getDelta().getBytes(StandardCharsets.UTF_8).length;
+        }
+        snapshotStore.release(snapshot);
+        snapshot.setBaseSnapshotId(null);
+        snapshotRepository.save(snapshot);
+      }
+      snapshotStore.rebuild(survivors, contents);
+      snapshotRepository.deleteAll(removed);
+      deleted += removed.size();
+    }
+
+    return new SnapshotCompactionReport(noteIds.size(), deleted, 0, bytes);
+  }
+
+  private Set<String> retained(List<NoteSnapshot> history, Instant now) {
+    List<Tier> tiers = properties.tiers();
+    Set<String> kept = new HashSet<>();
+    Set<String> buckets = new HashSet<>();
+
+    for (NoteSnapshot snapshot : history.reversed()) {
+      NoteSnapshot current = snapshot.getNoteId().getCurrentSnapshot();
+      if (current != null && current.getId().equals(snapshot.getId())) {
+        kept.add(snapshot.getId());
+        continue;
+      }
+
+      Tier tier = null;
+      int tierIndex = -1;
+      for (int i = 0; i < tiers.size(); i++) {
+        if (!snapshot.getCreatedAt().isAfter(now.minus(tiers.get(i).after()))) {
+          tier = tiers.get(i);
+          tierIndex = i;
+        }
+      }
+
+      if (tier == null) {
+        kept.add(snapshot.getId());
+        continue;
+      }
+
+      long bucket = snapshot.getCreatedAt().toEpochMilli() / tier.keepOnePer().toMillis();
+      if (buckets.add(tierIndex + ":" + bucket)) {
+        kept.add(snapshot.getId());
+      }
+    }
+    return kept;
+  }
+
+  private SnapshotCompactionReport sweepBlobs(List<SnapshotBlob> blobs) {
+    int deleted = 0;
+    long bytes = 0;
+    for (SnapshotBlob blob : blobs) {
+      if (blobRepository.deleteIfUnreferenced(blob.getHash()) > 0) {
+        deleted++;
+        bytes += blob.getContent().getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+
+    return new SnapshotCompactionReport(0, 0, deleted, bytes);
+  }
+
+  private record Window(Instant from, Instant to) {}
+
+  private record Compaction(List<NoteSnapshot> history, Set<String> kept) {}
+}
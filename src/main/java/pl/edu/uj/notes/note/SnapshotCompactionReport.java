@@ -0,0 +1,13 @@
+package pl.edu.uj.notes.note;
+
+record SnapshotCompactionReport(
+    int notesScanned, int snapshotsDeleted, int blobsDeleted, long bytesReclaimed) {
+
+  SnapshotCompactionReport plus(SnapshotCompactionReport other) {
+    return new SnapshotCompactionReport(
+        notesScanned + other.notesScanned,
+        snapshotsDeleted + other.snapshotsDeleted,
+        blobsDeleted + other.blobsDeleted,
+        bytesReclaimed + other.bytesReclaimed);
+  }
+}
@@ -2,11 +2,11 @@ package pl.edu.uj.notes.note;
 
 record SnapshotDTO(String id, String noteId, String content, long createdAt) {
 
-  static SnapshotDTO from(NoteSnapshot snapshot) {
+  static SnapshotDTO from(NoteSnapshot snapshot, String content) {
     return new SnapshotDTO(
         snapshot.getId(),
         snapshot.getNoteId().getId(),
-        snapshot.getContent(),
+        content,
         snapshot.getCreatedAt().toEpochMilli());
   }
 }
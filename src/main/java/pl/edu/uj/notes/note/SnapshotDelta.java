@@ -0,0 +1,61 @@
+package pl.edu.uj.notes.note;
+
+/**
+ * Text delta between two snapshot bodies: the length of the common prefix, the length of the common
+ * suffix and the replaced middle, encoded as {@code prefix:suffix:middle}.
+ */
+final class SnapshotDelta {
+
+  private static final char SEPARATOR = ':';
+
+  private SnapshotDelta() {}
+
+  static String encode(String base, String target) {
+    int prefix = commonPrefix(base, target);
+    int suffix = commonSuffix(base, target, prefix);
+
+    return String.valueOf(prefix)
+        + SEPARATOR
+        + suffix
+        + SEPARATOR
+        + target.substring(prefix, target.length() - suffix);
+  }
+
+  static String apply(String base, String delta) {
+    int first = delta.indexOf(SEPARATOR);
+    int second = delta.indexOf(SEPARATOR, first + 1);
+    int prefix = Integer.parseInt(delta.substring(0, first));
+    int suffix = Integer.parseInt(delta.substring(first + 1, second));
+
+    return base.substring(0, prefix)
+        + delta.substring(second + 1)
+        + base.substring(base.length() - suffix);
+  }
+
+  private static int commonPrefix(String base, String target) {
+    int limit = Math.min(base.length(), target.length());
+    int prefix = 0;
+    while (prefix < limit && base.charAt(prefix) == target.charAt(prefix)) {
+      prefix++;
+    }
+
+    if (prefix > 0 && Character.isHighSurrogate(target.charAt(prefix - 1))) {
+      prefix--;
+    }
+    return prefix;
+  }
+
+  private static int commonSuffix(String base, String target, int prefix) {
+    int limit = Math.min(base.length(), target.length()) - prefix;
+    int suffix = 0;
+    while (suffix < limit
+        && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+      suffix++;
+    }
+
+    if (suffix > 0 && Character.isLowSurrogate(target.charAt(target.length() - suffix))) {
+      suffix--;
+    }
+    return suffix;
+  }
+}
@@ -0,0 +1,164 @@
+package pl.edu.uj.notes.note;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import pl.edu.uj.notes.persistence.UuidKeys;
+
+/**
+ * Re-encodes history written before deltas existed, linking snapshots the way {@link SnapshotStore}
+ * does. Only notes whose history is still all keyframes are touched, in keyset-ordered batches of
+ * notes, so the change can be resumed. Blobs dropped by demoted snapshots are left for the
+ * compaction sweep. With {@code commitBatches} set, every batch commits on its own.
+ */
+public class SnapshotDeltaMigration implements CustomTaskChange {
+
+  private static final String NOTES_SQL =
+      """
+      SELECT note_id FROM note_snapshot
+      WHERE note_id > ?
+      GROUP BY note_id
+      HAVING count(*) > 1 AND count(base_snapshot_id) = 0
+      ORDER BY note_id
+      FETCH FIRST ? ROWS ONLY
+      """;
+
+  private static final String HISTORY_SQL =
+      """
+      SELECT s.id, s.content_hash, b.content,
+             CASE WHEN n.current_snapshot_id = s.id THEN 1 ELSE 0 END AS is_current
+      FROM note_snapshot s
+      JOIN snapshot_blob b ON b.hash = s.content_hash
+      JOIN note n ON n.id = s.note_id
+      WHERE s.note_id = ?
+      ORDER BY s.created_at, s.id
+      """;
+
+  private int batchSize = 500;
+  private int keyframeInterval = 20;
+  private boolean commitBatches;
+  private int updated;
+
+  public void setBatchSize(String batchSize) {
+    this.batchSize = Integer.parseInt(batchSize);
+  }
+
+  public void setKeyframeInterval(String keyframeInterval) {
+    this.keyframeInterval = Integer.parseInt(keyframeInterval);
+  }
+
+  public void setCommitBatches(String commitBatches) {
+    this.commitBatches = Boolean.parseBoolean(commitBatches);
+  }
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    try (PreparedStatement notes = connection.prepareStatement(NOTES_SQL);
+        PreparedStatement history = connection.prepareStatement(HISTORY_SQL);
+        PreparedStatement link =
+            connection.prepareStatement(
+                "UPDATE note_snapshot SET base_snapshot_id = ?, delta = ?, chain_depth = ?,"
+                    + " content_hash = ? WHERE note_id = ? AND id = ?");
+        PreparedStatement release =
+            connection.prepareStatement(
+                "UPDATE snapshot_blob SET reference_count = reference_count - 1 WHERE hash = ?")) {
+      Object lastNoteId = UuidKeys.toUuid(UuidKeys.NIL_ID);
+      while (true) {
+        notes.setObject(1, lastNoteId);
+        notes.setInt(2, batchSize);
+
+        List<Object> noteIds = new ArrayList<>();
+        try (ResultSet rows = notes.executeQuery()) {
+          while (rows.next()) {
+            noteIds.add(rows.getObject("note_id"));
+          }
+        }
+        if (noteIds.isEmpty()) {
+          return;
+        }
+
+        for (Object noteId : noteIds) {
+          reencode(noteId, history, link, release);
+        }
+        link.executeBatch();
+        release.executeBatch();
+        if (commitBatches && !connection.getAutoCommit()) {
+          connection.commit();
+        }
+        lastNoteId = noteIds.getLast();
+      }
+    } catch (SQLException e) {
+      throw new CustomChangeException(e);
+    }
+  }
+
+  private void reencode(
+      Object noteId,
+      PreparedStatement history,
+      PreparedStatement link,
+      PreparedStatement release)
+      throws SQLException {
+    history.setObject(1, noteId);
+    try (ResultSet rows = history.executeQuery()) {
+      Object previousId = null;
+      String previousContent = null;
+      int previousDepth = 0;
+      while (rows.next()) {
+        Object id = rows.getObject("id");
+        String hash = rows.getString("content_hash");
+        String content = rows.getString("content");
+        boolean current = rows.getInt("is_current") == 1;
+
+        int depth = 0;
+        if (previousId != null && previousDepth + 1 < keyframeInterval) {
+          String delta = SnapshotDelta.encode(previousContent, content);
+          if (delta.length() < content.length()) {
+            depth = previousDepth + 1;
+            link.setObject(1, previousId);
+            link.setString(2, delta);
+            link.setInt(3, depth);
+            link.setString(4, current ? hash : null);
+            link.setObject(5, noteId);
+            link.setObject(6, id);
+            link.addBatch();
+            if (!current) {
+              release.setString(1, hash);
+              release.addBatch();
+            }
+            updated++;
+          }
+        }
+
+        previousId = id;
+        previousContent = content;
+        previousDepth = depth;
+      }
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Re-encoded " + updated + " snapshots as deltas";
+  }
+
+  @Override
+  public void setUp() {}
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    return new ValidationErrors();
+  }
+}
@@ -0,0 +1,32 @@
+package pl.edu.uj.notes.note;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Tiered snapshot retention. Snapshots younger than the first tier are all kept; older ones keep
+ * only the newest snapshot per {@code keepOnePer} window of the oldest tier they have reached.
+ */
+@ConfigurationProperties("notes.snapshots.retention")
+record SnapshotRetentionProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("200") int batchSize,
+    List<Tier> tiers) {
+
+  static final List<Tier> DEFAULT_TIERS =
+      List.of(
+          new Tier(Duration.ofHours(24), Duration.ofHours(1)),
+          new Tier(Duration.ofDays(7), Duration.ofDays(1)));
+
+  SnapshotRetentionProperties {
+    tiers =
+        tiers == null || tiers.isEmpty()
+            ? DEFAULT_TIERS
+            : tiers.stream().sorted(Comparator.comparing(Tier::after)).toList();
+  }
+
+  record Tier(Duration after, Duration keepOnePer) {}
+}
@@ -2,9 +2,11 @@ package pl.edu.uj.notes.note;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pl.edu.uj.notes.note.exception.NoteNotFoundException;
 import pl.edu.uj.notes.note.exception.NoteSnapshotNotFoundException;
 
@@ -14,7 +16,11 @@ class SnapshotService {
 
   private final NoteRepository noteRepository;
   private final NoteSnapshotRepository snapshotRepository;
+  private final NoteSearchDocumentRepository searchDocumentRepository;
+  private final SnapshotStore snapshotStore;
+  private final NoteCache noteCache;
 
+  @Transactional(readOnly = true)
   List<SnapshotDTO> getSnapshotsByNoteId(String noteId) {
     Optional<Note> note = noteRepository.findById(noteId);
     if (note.isEmpty()) {
@@ -22,24 +28,35 @@ class SnapshotService {
     }
 
     List<NoteSnapshot> snapshots = snapshotRepository.findAllByNoteId(note.get());
+    Map<String, String> contents = snapshotStore.contents(snapshots);
 
-    return snapshots.stream().map(SnapshotDTO::from).toList();
+    return snapshots.stream()
+        .map(snapshot -> SnapshotDTO.from(snapshot, contents.get(snapshot.getId())))
+        .toList();
   }
 
+  @Transactional
   SnapshotDTO restoreSnapshot(String noteId, String snapshotId) {
     Optional<Note> note = noteRepository.findById(noteId);
     if (note.isEmpty()) {
       throw new NoteNotFoundException();
     }
 
-    Optional<NoteSnapshot> snapshot = snapshotRepository.findById(snapshotId);
-    if (snapshot.isEmpty()) {
-      throw new NoteSnapshotNotFoundException();
-    }
-
-    NoteSnapshot actual = snapshot.get();
-    actual.setCreatedAt(Instant.now());
-
-    return SnapshotDTO.from(snapshotRepository.save(actual));
+    // The history is needed to rebuild the body anyway, so the target is picked from it.
+    List<NoteSnapshot> history = snapshotRepository.findAllByNoteId(note.get());
+    NoteSnapshot actual =
+        history.stream()
+            .filter(snapshot -> snapshot.getId().equals(snapshotId))
+            .findFirst()
+            .orElseThrow(NoteSnapshotNotFoundException::new);
+
+    noteCache.invalidate(noteId);
+    String content = snapshotStore.content(actual, history);
+    NoteSnapshot restored = snapshotStore.restore(note.get(), actual, content);
+    noteRepository.save(note.get());
+    searchDocumentRepository.updateDocument(
+        noteId, note.get().getTitle(), content, Instant.now());
+
+    return SnapshotDTO.from(restored, content);
   }
 }
@@ -0,0 +1,7 @@
+package pl.edu.uj.notes.note;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("notes.snapshots")
+record SnapshotStorageProperties(@DefaultValue("20") int keyframeInterval) {}
@@ -0,0 +1,308 @@
+package pl.edu.uj.notes.note;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Component;
+import pl.edu.uj.notes.note.exception.NoteSnapshotNotFoundException;
+import pl.edu.uj.notes.persistence.DatabasePlatform;
+
+/**
+ * Stores snapshot history as keyframes plus deltas. A snapshot references its full body in a shared
+ * {@link SnapshotBlob} while it is the current snapshot of its note or when it is a keyframe;
+ * otherwise only the delta against its base is kept. At most {@code keyframeInterval - 1} deltas
+ * are applied to rebuild any snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+class SnapshotStore {
+
+  /** Rows per multi-row blob statement, well below the bind parameter limit of the drivers. */
+  static final int BLOB_STATEMENT_ROWS = 1000;
+
+  private final NoteSnapshotRepository snapshotRepository;
+  private final SnapshotBlobRepository blobRepository;
+  private final SnapshotStorageProperties properties;
+  private final DatabasePlatform databasePlatform;
+  private final EntityManager entityManager;
+
+  record Append(Note note, String content) {}
+
+  NoteSnapshot append(Note note, String content) {
+    NoteSnapshot previous = note.getCurrentSnapshot();
+    NoteSnapshot snapshot = new NoteSnapshot(note, acquire(content));
+    if (previous != null) {
+      link(snapshot, content, previous, previous.getContent());
+    }
+
+    snapshot = snapshotRepository.save(snapshot);
+    demote(previous);
+    note.setCurrentSnapshot(snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Appends like {@link #append} for many notes at once. The references taken by the new snapshots
+   * and released by demoted ones are netted per hash and applied with one multi-row statement, so
+   * nothing is flushed per note and the snapshot writes stay in Hibernate's JDBC batches. At most
+   * one entry per note.
+   */
+  List<NoteSnapshot> appendAll(List<Append> appends) {
+    Map<String, String> contents = new HashMap<>();
+    Map<String, Long> references = new LinkedHashMap<>();
+    for (Append append : appends) {
+      String hash = SnapshotBlob.hash(append.content());
+      contents.putIfAbsent(hash, append.content());
+      references.merge(hash, 1L, Long::sum);
+
+      NoteSnapshot previous = append.note().getCurrentSnapshot();
+      if (isDemotable(previous)) {
+        contents.putIfAbsent(previous.getContentHash(), previous.getContent());
+        references.merge(previous.getContentHash(), -1L, Long::sum);
+      }
+    }
+    references.values().removeIf(count -> count == 0);
+    adjustAll(references, contents);
+
+    List<NoteSnapshot> snapshots = new ArrayList<>(appends.size());
+    for (Append append : appends) {
+      Note note = append.note();
+      NoteSnapshot previous = note.getCurrentSnapshot();
+      NoteSnapshot snapshot =
+          new NoteSnapshot(
+              note, blobRepository.getReferenceById(SnapshotBlob.hash(append.content())));
+      if (previous != null) {
+        link(snapshot, append.content(), previous, previous.getContent());
+      }
+
+      snapshot = snapshotRepository.save(snapshot);
+      if (isDemotable(previous)) {
+        previous.setBlob(null);
+        snapshotRepository.save(previous);
+      }
+      note.setCurrentSnapshot(snapshot);
+      snapshots.add(snapshot);
+    }
+    return snapshots;
+  }
+
+  NoteSnapshot restore(Note note, NoteSnapshot target, String content) {
+    NoteSnapshot previous = note.getCurrentSnapshot();
+    if (target.getBlob() == null) {
+      target.setBlob(acquire(content));
+    }
+    target.setCreatedAt(Instant.now());
+    NoteSnapshot restored = snapshotRepository.save(target);
+
+    if (previous != null && !previous.getId().equals(restored.getId())) {
+      demote(previous);
+    }
+    note.setCurrentSnapshot(restored);
+    return restored;
+  }
+
+  /**
+   * Re-links the surviving history of one note after some of its snapshots were removed. {@code
+   * history} must be in creation order and {@code contents} must hold every body in it.
+   */
+  void rebuild(List<NoteSnapshot> history, Map<String, String> contents) {
+    NoteSnapshot previous = null;
+    for (NoteSnapshot snapshot : history) {
+      String content = contents.get(snapshot.getId());
+      snapshot.setBaseSnapshotId(null);
+      snapshot.setDelta(null);
+      snapshot.setChainDepth(0);
+      if (previous != null) {
+        link(snapshot, content, previous, contents.get(previous.getId()));
+      }
+
+      NoteSnapshot current = snapshot.getNoteId().getCurrentSnapshot();
+      boolean isCurrent = current != null && current.getId().equals(snapshot.getId());
+      if (snapshot.isKeyframe() || isCurrent) {
+        if (snapshot.getBlob() == null) {
+          snapshot.setBlob(acquire(content));
+        }
+      } else {
+        release(snapshot);
+      }
+
+      snapshotRepository.save(snapshot);
+      previous = snapshot;
+    }
+  }
+
+  String content(NoteSnapshot snapshot, Collection<NoteSnapshot> history) {
+    return resolve(snapshot, byId(history), new HashMap<>());
+  }
+
+  Map<String, String> contents(Collection<NoteSnapshot> history) {
+    return contents(history, history);
+  }
+
+  /** Resolves only {@code targets}, following their delta chains through {@code history}. */
+  Map<String, String> contents(Collection<NoteSnapshot> targets, Collection<NoteSnapshot> history) {
+    Map<String, NoteSnapshot> byId = byId(history);
+    Map<String, String> resolved = new HashMap<>();
+    for (NoteSnapshot snapshot : targets) {
+      resolve(snapshot, byId, resolved);
+    }
+    return resolved;
+  }
+
+  private String resolve(
+      NoteSnapshot snapshot, Map<String, NoteSnapshot> byId, Map<String, String> resolved) {
+    Deque<NoteSnapshot> chain = new ArrayDeque<>();
+    NoteSnapshot cursor = snapshot;
+    String content = resolved.getOrDefault(cursor.getId(), cursor.getContent());
+
+    while (content == null) {
+      chain.push(cursor);
+      cursor = lookup(cursor.getNoteId(), cursor.getBaseSnapshotId(), byId);
+      content = resolved.getOrDefault(cursor.getId(), cursor.getContent());
+    }
+
+    resolved.put(cursor.getId(), content);
+    while (!chain.isEmpty()) {
+      NoteSnapshot next = chain.pop();
+      content = SnapshotDelta.apply(content, next.getDelta());
+      resolved.put(next.getId(), content);
+    }
+    return content;
+  }
+
+  private static Map<String, NoteSnapshot> byId(Collection<NoteSnapshot> history) {
+    return history.stream()
+        .collect(
+            Collectors.toMap(NoteSnapshot::getId, Function.identity(), (first, ignored) -> first));
+  }
+
+  private NoteSnapshot lookup(Note note, String id, Map<String, NoteSnapshot> byId) {
+    if (id == null) {
+      throw new NoteSnapshotNotFoundException();
+    }
+
+    NoteSnapshot snapshot = byId.get(id);
+    if (snapshot != null) {
+      return snapshot;
+    }
+    return snapshotRepository
+        .findByNoteIdAndId(note, id)
+        .orElseThrow(NoteSnapshotNotFoundException::new);
+  }
+
+  private void link(
+      NoteSnapshot snapshot, String content, NoteSnapshot previous, String previousContent) {
+    if (previous.getChainDepth() + 1 >= properties.keyframeInterval()) {
+      return;
+    }
+
+    String delta = SnapshotDelta.encode(previousContent, content);
+    if (delta.length() < content.length()) {
+      snapshot.setBaseSnapshotId(previous.getId());
+      snapshot.setDelta(delta);
+      snapshot.setChainDepth(previous.getChainDepth() + 1);
+    }
+  }
+
+  private SnapshotBlob acquire(String content) {
+    String hash = SnapshotBlob.hash(content);
+    if (databasePlatform.isPostgres()) {
+      blobRepository.upsertReference(hash, content);
+    } else {
+      blobRepository.mergeReference(hash, content);
+    }
+    // The row exists now; a reference avoids reading back a body the caller already holds.
+    return blobRepository.getReferenceById(hash);
+  }
+
+  /**
+   * Adds {@code counts}, negative for released references, to the blobs and inserts the ones that
+   * do not exist yet. PostgreSQL uses {@code ON CONFLICT}, which stays correct when writers race on
+   * a hash; other databases use {@code MERGE}.
+   */
+  private void adjustAll(Map<String, Long> counts, Map<String, String> contents) {
+    for (List<String> hashes : chunks(counts.keySet())) {
+      StringBuilder sql = new StringBuilder();
+      List<String> rows = new ArrayList<>();
+      Map<String, Object> parameters = new HashMap<>();
+      for (int i = 0; i < hashes.size(); i++) {
+        rows.add(
+            databasePlatform.isPostgres()
+                ? "(:hash%1$d, :content%1$d, :count%1$d, CURRENT_TIMESTAMP)".formatted(i)
+                : ("(CAST(:hash%1$d AS varchar(64)), CAST(:content%1$d AS varchar),"
+                        + " CAST(:count%1$d AS bigint))")
+                    .formatted(i));
+        parameters.put("hash" + i, hashes.get(i));
+        parameters.put("content" + i, contents.get(hashes.get(i)));
+        parameters.put("count" + i, counts.get(hashes.get(i)));
+      }
+
+      if (databasePlatform.isPostgres()) {
+        sql.append("INSERT INTO snapshot_blob (hash, content, reference_count, created_at) VALUES ")
+            .append(String.join(", ", rows))
+            .append(" ON CONFLICT (hash) DO UPDATE SET reference_count =")
+            .append(" snapshot_blob.reference_count + EXCLUDED.reference_count");
+      } else {
+        sql.append("MERGE INTO snapshot_blob b USING (VALUES ")
+            .append(String.join(", ", rows))
+            .append(") v (hash, content, n) ON b.hash = v.hash")
+            .append(" WHEN MATCHED THEN UPDATE SET reference_count = b.reference_count + v.n")
+            .append(" WHEN NOT MATCHED THEN INSERT (hash, content, reference_count, created_at)")
+            .append(" VALUES (v.hash, v.content, v.n, CURRENT_TIMESTAMP)");
+      }
+      executeBlobUpdate(sql.toString(), parameters);
+    }
+  }
+
+  /**
+   * Declaring snapshot_blob as the only affected table keeps Hibernate from flushing pending note
+   * and snapshot writes ahead of the statement.
+   */
+  private void executeBlobUpdate(String sql, Map<String, Object> parameters) {
+    Query query = entityManager.createNativeQuery(sql);
+    parameters.forEach(query::setParameter);
+    query.unwrap(NativeQuery.class).addSynchronizedEntityClass(SnapshotBlob.class);
+    query.executeUpdate();
+  }
+
+  private static List<List<String>> chunks(Collection<String> hashes) {
+    List<String> all = List.copyOf(hashes);
+    List<List<String>> chunks = new ArrayList<>();
+    for (int from = 0; from < all.size(); from += BLOB_STATEMENT_ROWS) {
+      chunks.add(all.subList(from, Math.min(all.size(), from + BLOB_STATEMENT_ROWS)));
+    }
+    return chunks;
+  }
+
+  private static boolean isDemotable(NoteSnapshot snapshot) {
+    return snapshot != null && !snapshot.isKeyframe() && snapshot.getBlob() != null;
+  }
+
+  private void demote(NoteSnapshot snapshot) {
+    if (!isDemotable(snapshot)) {
+      return;
+    }
+
+    release(snapshot);
+    snapshotRepository.save(snapshot);
+  }
+
+  void release(NoteSnapshot snapshot) {
+    if (snapshot.getBlob() != null) {
+      blobRepository.adjustReferenceCount(snapshot.getContentHash(), -1);
+      snapshot.setBlob(null);
+    }
+  }
+}
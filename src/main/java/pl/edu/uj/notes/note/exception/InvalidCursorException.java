@@ -0,0 +1,11 @@
+package pl.edu.uj.notes.note.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+  public InvalidCursorException() {
+    super("Invalid page cursor");
+  }
+}
@@ -0,0 +1,11 @@
+package pl.edu.uj.notes.note.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class NoteVersionMismatchException extends RuntimeException {
+  public NoteVersionMismatchException() {
+    super("Note was modified by another request");
+  }
+}
@@ -0,0 +1,23 @@
+package pl.edu.uj.notes.persistence;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+/** Tells callers with dialect-specific native SQL which database Hibernate is talking to. */
+@Component
+@RequiredArgsConstructor
+public class DatabasePlatform {
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  public boolean isPostgres() {
+    return entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect()
+        instanceof PostgreSQLDialect;
+  }
+}
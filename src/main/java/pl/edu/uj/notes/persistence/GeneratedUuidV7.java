@@ -0,0 +1,14 @@
+package pl.edu.uj.notes.persistence;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/** Assigns a {@link UuidKeys#newId() UUIDv7} key on insert. */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface GeneratedUuidV7 {}
@@ -0,0 +1,158 @@
+package pl.edu.uj.notes.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Fills the {@code *_uuid} shadow columns from the legacy {@code varchar} keys in keyset-ordered
+ * batches, converting each value with {@link UuidKeys#toUuid(String)}. Only rows whose shadow key
+ * is still empty are touched, so the change can be resumed and re-run as a catch-up pass. With
+ * {@code commitBatches} set, every batch commits on its own to keep row locks short.
+ */
+public class UuidKeyMigration implements CustomTaskChange {
+
+  private static final List<KeyTable> TABLES =
+      List.of(
+          new KeyTable("user_entity", List.of("id"), List.of("id")),
+          new KeyTable("category", List.of("id"), List.of("id")),
+          new KeyTable("note", List.of("id"), List.of("id", "owner_id", "current_snapshot_id")),
+          new KeyTable(
+              "note_snapshot", List.of("id"), List.of("id", "note_id", "base_snapshot_id")),
+          new KeyTable("note_search_document", List.of("note_id"), List.of("note_id")),
+          new KeyTable(
+              "category_notes",
+              List.of("category_id", "notes_id"),
+              List.of("category_id", "notes_id")));
+
+  private int batchSize = 1000;
+  private boolean commitBatches;
+  private int updated;
+
+  public void setBatchSize(String batchSize) {
+    this.batchSize = Integer.parseInt(batchSize);
+  }
+
+  public void setCommitBatches(String commitBatches) {
+    this.commitBatches = Boolean.parseBoolean(commitBatches);
+  }
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    try {
+      for (KeyTable table : TABLES) {
+        migrate(connection, table);
+      }
+    } catch (SQLException e) {
+      throw new CustomChangeException(e);
+    }
+  }
+
+  private void migrate(Connection connection, KeyTable table) throws SQLException {
+    try (PreparedStatement first = connection.prepareStatement(table.selectSql(false));
+        PreparedStatement next = connection.prepareStatement(table.selectSql(true));
+        PreparedStatement update = connection.prepareStatement(table.updateSql())) {
+      List<String> lastKey = null;
+      while (true) {
+        PreparedStatement select = lastKey == null ? first : next;
+        int parameter = 1;
+        if (lastKey != null) {
+          for (String key : lastKey) {
+            select.setString(parameter++, key);
+          }
+        }
+        select.setInt(parameter, batchSize);
+
+        int rows = 0;
+        try (ResultSet resultSet = select.executeQuery()) {
+          while (resultSet.next()) {
+            parameter = 1;
+            for (String column : table.columns()) {
+              String value = resultSet.getString(column);
+              if (value == null) {
+                update.setNull(parameter++, Types.OTHER);
+              } else {
+                update.setObject(parameter++, UuidKeys.toUuid(value));
+              }
+            }
+            lastKey = new ArrayList<>();
+            for (String key : table.keys()) {
+              lastKey.add(resultSet.getString(key));
+              update.setString(parameter++, resultSet.getString(key));
+            }
+            update.addBatch();
+            rows++;
+          }
+        }
+        if (rows == 0) {
+          return;
+        }
+        update.executeBatch();
+        updated += rows;
+        if (commitBatches && !connection.getAutoCommit()) {
+          connection.commit();
+        }
+      }
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Converted keys of " + updated + " rows to uuid";
+  }
+
+  @Override
+  public void setUp() {}
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    return new ValidationErrors();
+  }
+
+  private record KeyTable(String name, List<String> keys, List<String> columns) {
+
+    String selectSql(boolean afterKey) {
+      String keyList = String.join(", ", keys);
+      String keyTuple = keys.size() == 1 ? keyList : "(" + keyList + ")";
+      String placeholders =
+          keys.size() == 1
+              ? "?"
+              : keys.stream().map(key -> "?").collect(Collectors.joining(", ", "(", ")"));
+      return "SELECT "
+          + String.join(", ", columns)
+          + " FROM "
+          + name
+          + " WHERE "
+          + columns.getFirst()
+          + "_uuid IS NULL"
+          + (afterKey ? " AND " + keyTuple + " > " + placeholders : "")
+          + " ORDER BY "
+          + keyList
+          + " FETCH FIRST ? ROWS ONLY";
+    }
+
+    String updateSql() {
+      return "UPDATE "
+          + name
+          + " SET "
+          + columns.stream().map(column -> column + "_uuid = ?").collect(Collectors.joining(", "))
+          + " WHERE "
+          + keys.stream().map(key -> key + " = ?").collect(Collectors.joining(" AND "));
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package pl.edu.uj.notes.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Entity keys are time-ordered UUIDv7 values (RFC 9562) kept as strings in the domain and stored
+ * in native {@code uuid} columns.
+ */
+public final class UuidKeys {
+
+  /** Sorts before every other key; the starting point for keyset scans over uuid columns. */
+  public static final String NIL_ID = "00000000-0000-0000-0000-000000000000";
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private UuidKeys() {}
+
+  public static String newId() {
+    return newUuidV7(System.currentTimeMillis()).toString();
+  }
+
+  static UUID newUuidV7(long epochMillis) {
+    byte[] random = new byte[10];
+    RANDOM.nextBytes(random);
+    long mostSignificant =
+        (epochMillis << 16) | 0x7000L | ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);
+    long leastSignificant =
+        Long.MIN_VALUE | (ByteBuffer.wrap(random, 2, 8).getLong() & 0x3FFFFFFFFFFFFFFFL);
+    return new UUID(mostSignificant, leastSignificant);
+  }
+
+  /**
+   * Maps a string key to its column value. Canonical UUID strings map to themselves; any other
+   * string, such as the seeded {@code admin} id, maps to a stable name-based UUID, so legacy keys
+   * keep resolving and malformed ids simply match nothing.
+   */
+  public static UUID toUuid(String id) {
+    try {
+      UUID uuid = UUID.fromString(id);
+      if (uuid.toString().equalsIgnoreCase(id)) {
+        return uuid;
+      }
+    } catch (IllegalArgumentException ignored) {
+      // not a canonical UUID
+    }
+    return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static List<UUID> toUuids(Collection<String> ids) {
+    return ids.stream().map(UuidKeys::toUuid).toList();
+  }
+
+  public static String toId(Object uuid) {
+    return uuid == null ? null : uuid.toString();
+  }
+}
@@ -0,0 +1,79 @@
+package pl.edu.uj.notes.persistence;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.UUID;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.usertype.UserType;
+
+/** Maps a {@code String} key attribute to a native {@code uuid} column via {@link UuidKeys}. */
+public class UuidStringType implements UserType<String> {
+
+  @Override
+  public int getSqlType() {
+    return SqlTypes.UUID;
+  }
+
+  @Override
+  public Class<String> returnedClass() {
+    return String.class;
+  }
+
+  @Override
+  public boolean equals(String x, String y) {
+    return Objects.equals(x, y);
+  }
+
+  @Override
+  public int hashCode(String x) {
+    return Objects.hashCode(x);
+  }
+
+  @Override
+  public String nullSafeGet(
+      ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+      throws SQLException {
+    return UuidKeys.toId(rs.getObject(position, UUID.class));
+  }
+
+  @Override
+  public void nullSafeSet(
+      PreparedStatement st, String value, int index, SharedSessionContractImplementor session)
+      throws SQLException {
+    if (value == null) {
+      st.setNull(index, Types.OTHER);
+    } else {
+      st.setObject(index, UuidKeys.toUuid(value));
+    }
+  }
+
+  @Override
+  public String deepCopy(String value) {
+    return value;
+  }
+
+  @Override
+  public boolean isMutable() {
+    return false;
+  }
+
+  @Override
+  public Serializable disassemble(String value) {
+    return value;
+  }
+
+  @Override
+  public String assemble(Serializable cached, Object owner) {
+    return (String) cached;
+  }
+
+  @Override
+  public String replace(String detached, String managed, Object owner) {
+    return detached;
+  }
+}
@@ -0,0 +1,44 @@
+package pl.edu.uj.notes.replica;
+
+/** A PostgreSQL write-ahead log position in its {@code X/Y} text form, compared unsigned. */
+record Lsn(long value) implements Comparable<Lsn> {
+
+  /** Greater than every real position, so no replica ever satisfies it. */
+  static final Lsn MAX = new Lsn(-1L);
+
+  private static final long HALF_MASK = 0xFFFFFFFFL;
+
+  static Lsn parse(String text) {
+    int slash = text.indexOf('/');
+    if (slash <= 0 || slash == text.length() - 1) {
+      throw new IllegalArgumentException("Invalid LSN: " + text);
+    }
+
+    long high = parseHalf(text.substring(0, slash), text);
+    long low = parseHalf(text.substring(slash + 1), text);
+    return new Lsn(high << 32 | low);
+  }
+
+  private static long parseHalf(String half, String text) {
+    if (half.length() > 8 || !half.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+      throw new IllegalArgumentException("Invalid LSN: " + text);
+    }
+    return Long.parseLong(half, 16);
+  }
+
+  boolean isAtLeast(Lsn other) {
+    return compareTo(other) >= 0;
+  }
+
+  @Override
+  public int compareTo(Lsn other) {
+    return Long.compareUnsigned(value, other.value);
+  }
+
+  @Override
+  public String toString() {
+    return Long.toHexString(value >>> 32).toUpperCase()
+        + "/"
+        + Long.toHexString(value & HALF_MASK).toUpperCase();
+  }
+}
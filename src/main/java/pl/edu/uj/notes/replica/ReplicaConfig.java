@@ -0,0 +1,69 @@
+package pl.edu.uj.notes.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Clock;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured {@code DataSource} with one that takes read-only transactions to
+ * {@link ReplicaRouter} and everything else to the primary pool from {@code spring.datasource}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "notes.datasource.replicas.enabled", havingValue = "true")
+class ReplicaConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  ReplicaRouter replicaRouter(HikariDataSource primaryDataSource, ReplicaProperties properties) {
+    return new ReplicaRouter(primaryDataSource, properties, Clock.systemUTC());
+  }
+
+  /**
+   * The connection is fetched on first use, after Spring has marked it read-only for a read-only
+   * transaction, which is when the replica is chosen.
+   */
+  @Bean
+  @Primary
+  DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRouter replicaRouter) {
+    var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+    dataSource.setReadOnlyDataSource(replicaRouter.readOnlyDataSource());
+    return dataSource;
+  }
+
+  /**
+   * Hibernate otherwise holds one connection for the whole open-in-view session, so a write after
+   * a read-only transaction in the same request would reuse the replica connection.
+   */
+  @Bean
+  HibernatePropertiesCustomizer replicaConnectionHandling() {
+    return properties ->
+        properties.put(
+            AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+  }
+
+  @Bean
+  ReplicaConsistencyFilter replicaConsistencyFilter() {
+    return new ReplicaConsistencyFilter();
+  }
+
+  @Bean
+  ReplicaConsistencyListener replicaConsistencyListener(ReplicaRouter replicaRouter) {
+    return new ReplicaConsistencyListener(replicaRouter);
+  }
+}
@@ -0,0 +1,48 @@
+package pl.edu.uj.notes.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Applies the consistency token a client received from an earlier write, so reads in this request
+ * only go to replicas that have replayed it. Runs before authentication, which reads the user. A
+ * malformed token sends the request's reads to the primary.
+ */
+class ReplicaConsistencyFilter extends OncePerRequestFilter implements Ordered {
+
+  static final String TOKEN_HEADER = "Notes-Consistency-Token";
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String token = request.getHeader(TOKEN_HEADER);
+    try {
+      if (token != null) {
+        ReplicaRouter.requireAtLeast(parse(token));
+      }
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRouter.clearRequirement();
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return SecurityProperties.DEFAULT_FILTER_ORDER - 1;
+  }
+
+  private static Lsn parse(String token) {
+    try {
+      return Lsn.parse(token.trim());
+    } catch (IllegalArgumentException e) {
+      return Lsn.MAX;
+    }
+  }
+}
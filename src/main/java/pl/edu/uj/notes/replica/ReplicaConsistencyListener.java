@@ -0,0 +1,45 @@
+package pl.edu.uj.notes.replica;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * After a read-write transaction commits during a request, returns the primary's WAL position as
+ * the consistency token and holds the rest of the request's reads to it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class ReplicaConsistencyListener implements TransactionExecutionListener {
+
+  private final ReplicaRouter router;
+
+  @Override
+  public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+    if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+      return;
+    }
+    if (!(RequestContextHolder.getRequestAttributes()
+        instanceof ServletRequestAttributes attributes)) {
+      return;
+    }
+
+    HttpServletResponse response = attributes.getResponse();
+    if (response == null || response.isCommitted()) {
+      return;
+    }
+
+    try {
+      Lsn position = router.primaryPosition();
+      ReplicaRouter.requireAtLeast(position);
+      response.setHeader(ReplicaConsistencyFilter.TOKEN_HEADER, position.toString());
+    } catch (DataAccessException e) {
+      log.warn("Cannot read the primary WAL position, no consistency token issued", e);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package pl.edu.uj.notes.replica;
+
+import java.time.Duration;
+import java.time.Instant;
+import javax.sql.DataSource;
+
+/** One replica's connection pool and the replication progress last observed on it. */
+final class ReplicaNode {
+
+  private final String name;
+  private final DataSource dataSource;
+  private volatile Lsn replayed;
+  private volatile Instant caughtUpAt;
+
+  ReplicaNode(String name, DataSource dataSource) {
+    this.name = name;
+    this.dataSource = dataSource;
+  }
+
+  String name() {
+    return name;
+  }
+
+  DataSource dataSource() {
+    return dataSource;
+  }
+
+  /**
+   * Records the position the replica has replayed. When it has reached {@code primary}, sampled on
+   * the primary at {@code sampledAt}, the replica is at most {@code now - sampledAt} behind.
+   */
+  void observe(Lsn replayed, Lsn primary, Instant sampledAt) {
+    this.replayed = replayed;
+    if (replayed != null && replayed.isAtLeast(primary)) {
+      caughtUpAt = sampledAt;
+    }
+  }
+
+  void markDown() {
+    replayed = null;
+    caughtUpAt = null;
+  }
+
+  boolean isUsable(Instant now, Duration maxLag, Lsn required) {
+    Instant caughtUp = caughtUpAt;
+    Lsn position = replayed;
+    if (caughtUp == null || caughtUp.plus(maxLag).isBefore(now)) {
+      return false;
+    }
+    return required == null || (position != null && position.isAtLeast(required));
+  }
+}
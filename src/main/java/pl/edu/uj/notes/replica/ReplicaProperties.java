@@ -0,0 +1,25 @@
+package pl.edu.uj.notes.replica;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Read replicas for read-only transactions. A replica serves reads only while it has replayed
+ * everything the primary had written at most {@code maxLag} ago.
+ */
+@ConfigurationProperties("notes.datasource.replicas")
+record ReplicaProperties(
+    @DefaultValue("false") boolean enabled,
+    List<Node> nodes,
+    @DefaultValue("PT2S") Duration maxLag,
+    @DefaultValue("PT1S") Duration checkInterval,
+    @DefaultValue("10") int poolSize) {
+
+  ReplicaProperties {
+    nodes = nodes == null ? List.of() : List.copyOf(nodes);
+  }
+
+  record Node(String url, String username, String password) {}
+}
@@ -0,0 +1,161 @@
+package pl.edu.uj.notes.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Picks the database for read-only transactions: replicas in turn, skipping any that lag more
+ * than {@code maxLag} or have not yet replayed the position the current request must see, and the
+ * primary when none qualifies. Replication progress is sampled every {@code checkInterval}.
+ */
+@Slf4j
+class ReplicaRouter implements AutoCloseable {
+
+  private static final ThreadLocal<Lsn> REQUIRED = new ThreadLocal<>();
+
+  private final DataSource primary;
+  private final List<ReplicaNode> nodes;
+  private final Duration maxLag;
+  private final Clock clock;
+  private final AtomicInteger next = new AtomicInteger();
+  private final DataSource readOnlyDataSource = new RoutingDataSource();
+
+  ReplicaRouter(DataSource primary, ReplicaProperties properties, Clock clock) {
+    this(primary, pools(properties), properties.maxLag(), clock);
+  }
+
+  ReplicaRouter(DataSource primary, List<ReplicaNode> nodes, Duration maxLag, Clock clock) {
+    this.primary = primary;
+    this.nodes = List.copyOf(nodes);
+    this.maxLag = maxLag;
+    this.clock = clock;
+  }
+
+  /** Makes read-only work on this thread wait for a replica that has replayed {@code lsn}. */
+  static void requireAtLeast(Lsn lsn) {
+    Lsn current = REQUIRED.get();
+    if (current == null || lsn.isAtLeast(current)) {
+      REQUIRED.set(lsn);
+    }
+  }
+
+  static void clearRequirement() {
+    REQUIRED.remove();
+  }
+
+  DataSource readOnlyDataSource() {
+    return readOnlyDataSource;
+  }
+
+  /** Returns the replica to read from, or {@code null} for the primary. */
+  ReplicaNode select(Instant now, Lsn required) {
+    int start = Math.floorMod(next.getAndIncrement(), Math.max(nodes.size(), 1));
+    for (int i = 0; i < nodes.size(); i++) {
+      ReplicaNode node = nodes.get((start + i) % nodes.size());
+      if (node.isUsable(now, maxLag, required)) {
+        return node;
+      }
+    }
+    return null;
+  }
+
+  Lsn primaryPosition() {
+    return Lsn.parse(
+        new JdbcTemplate(primary)
+            .queryForObject("SELECT CAST(pg_current_wal_lsn() AS text)", String.class));
+  }
+
+  @Scheduled(fixedDelayString = "${notes.datasource.replicas.check-interval:PT1S}")
+  void refresh() {
+    Instant sampledAt = clock.instant();
+    Lsn position;
+    try {
+      position = primaryPosition();
+    } catch (DataAccessException e) {
+      log.warn("Cannot read the primary WAL position, replicas keep their last state", e);
+      return;
+    }
+
+    for (ReplicaNode node : nodes) {
+      try {
+        String replayed =
+            new JdbcTemplate(node.dataSource())
+                .queryForObject("SELECT CAST(pg_last_wal_replay_lsn() AS text)", String.class);
+        node.observe(replayed == null ? null : Lsn.parse(replayed), position, sampledAt);
+      } catch (DataAccessException e) {
+        log.warn("Replica {} is unreachable, reading from the primary instead", node.name(), e);
+        node.markDown();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (ReplicaNode node : nodes) {
+      if (node.dataSource() instanceof AutoCloseable closeable) {
+        try {
+          closeable.close();
+        } catch (Exception e) {
+          log.warn("Failed to close the pool of replica {}", node.name(), e);
+        }
+      }
+    }
+  }
+
+  private static List<ReplicaNode> pools(ReplicaProperties properties) {
+    List<ReplicaNode> nodes = new ArrayList<>();
+    for (ReplicaProperties.Node node : properties.nodes()) {
+      String name = "replica-" + (nodes.size() + 1);
+      HikariDataSource pool =
+          DataSourceBuilder.create()
+              .type(HikariDataSource.class)
+              .url(node.url())
+              .username(node.username())
+              .password(node.password())
+              .build();
+      pool.setPoolName(name);
+      pool.setMaximumPoolSize(properties.poolSize());
+      pool.setReadOnly(true);
+      nodes.add(new ReplicaNode(name, pool));
+    }
+    return nodes;
+  }
+
+  private class RoutingDataSource extends AbstractDataSource {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      ReplicaNode node = select(clock.instant(), REQUIRED.get());
+      if (node == null) {
+        return primary.getConnection();
+      }
+
+      try {
+        return node.dataSource().getConnection();
+      } catch (SQLException e) {
+        log.warn("Cannot connect to replica {}, reading from the primary instead", node.name(), e);
+        node.markDown();
+        return primary.getConnection();
+      }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+      throw new UnsupportedOperationException("Replicas use the configured credentials");
+    }
+  }
+}
@@ -18,4 +18,12 @@ public class InternalUserService {
 
     return userRepository.getUserEntityByUsername(username);
   }
+
+  public Optional<UserEntity> getUserById(String id) {
+    if (StringUtils.isBlank(id)) {
+      throw new IllegalArgumentException("User id should not be null or empty");
+    }
+
+    return userRepository.findById(id);
+  }
 }
@@ -2,13 +2,14 @@ package pl.edu.uj.notes.user;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.With;
+import org.hibernate.annotations.Type;
+import pl.edu.uj.notes.persistence.GeneratedUuidV7;
+import pl.edu.uj.notes.persistence.UuidStringType;
 
 @Entity
 @Data
@@ -18,7 +19,8 @@ import lombok.With;
 public class UserEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @GeneratedUuidV7
+  @Type(UuidStringType.class)
   private String id;
 
   @Column(unique = true)
@@ -31,6 +33,9 @@ public class UserEntity {
   @Column(nullable = false)
   private boolean isBlocked = false;
 
+  @Column(nullable = false)
+  private long credentialsVersion;
+
   public UserEntity(String username, String password) {
     this.username = username;
     this.password = password;
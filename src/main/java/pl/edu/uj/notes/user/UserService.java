@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pl.edu.uj.notes.authorization.AccessControlService;
 import pl.edu.uj.notes.authorization.Action;
 import pl.edu.uj.notes.user.exception.InvalidOldPasswordException;
@@ -62,6 +63,7 @@ public class UserService {
       throw new InvalidOldPasswordException("Old password is incorrect");
     }
     user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+    user.setCredentialsVersion(user.getCredentialsVersion() + 1);
     userRepository.save(user);
   }
 
@@ -72,9 +74,11 @@ public class UserService {
             .orElseThrow(() -> new UserNotFoundException("User not found"));
 
     user.setBlocked(request.isBlock());
+    user.setCredentialsVersion(user.getCredentialsVersion() + 1);
     userRepository.save(user);
   }
 
+  @Transactional(readOnly = true)
   public Map<String, String> viewUsers(ViewUsersRequest request) {
     List<UserEntity> users =
         request.getIdList().isEmpty()
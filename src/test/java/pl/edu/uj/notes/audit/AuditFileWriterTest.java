@@ -0,0 +1,59 @@
+package pl.edu.uj.notes.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditFileWriterTest {
+
+  @TempDir Path directory;
+
+  AuditRingBuffer ring = new AuditRingBuffer(16);
+
+  @Test
+  void writesOneJsonLinePerEvent() throws Exception {
+    Path file = directory.resolve("audit.log");
+    try (var writer = new AuditFileWriter(file, 1024 * 1024, 2)) {
+      ring.offer(1000, "GET", "/api/v1/notes", 200, 12_000_000, "user");
+      ring.offer(2000, "POST", "/api/v1/notes/\"x\"", 403, 1_000_000, null);
+      ring.drain(writer::append, 10);
+      writer.flush();
+    }
+
+    var lines = Files.readAllLines(file);
+    var objectMapper = new ObjectMapper();
+    var first = objectMapper.readTree(lines.get(0));
+    var second = objectMapper.readTree(lines.get(1));
+
+    assertThat(lines).hasSize(2);
+    assertThat(first.get("path").asText()).isEqualTo("GET /api/v1/notes");
+    assertThat(first.get("duration").asLong()).isEqualTo(12);
+    assertThat(first.get("username").asText()).isEqualTo("user");
+    assertThat(second.get("path").asText()).isEqualTo("POST /api/v1/notes/\"x\"");
+    assertThat(second.get("statusCode").asInt()).isEqualTo(403);
+    assertThat(second.get("username").isNull()).isTrue();
+  }
+
+  @Test
+  void rotatesFileWhenSizeLimitIsReached() throws Exception {
+    Path file = directory.resolve("audit.log");
+    try (var writer = new AuditFileWriter(file, 50, 2)) {
+      for (int i = 0; i < 4; i++) {
+        ring.offer(i, "GET", "/api/v1/notes/" + i, 200, 1, "user");
+        ring.drain(writer::append, 10);
+        writer.flush();
+      }
+
+      assertThat(writer.rotations()).isEqualTo(4);
+    }
+
+    assertThat(directory.resolve("audit.log.1")).exists();
+    assertThat(directory.resolve("audit.log.2")).exists();
+    assertThat(directory.resolve("audit.log.3")).doesNotExist();
+    assertThat(Files.readString(directory.resolve("audit.log.1"))).contains("/api/v1/notes/3");
+  }
+}
@@ -0,0 +1,60 @@
+package pl.edu.uj.notes.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class AuditRingBufferTest {
+
+  @Test
+  void roundsCapacityUpToPowerOfTwo() {
+    assertThat(new AuditRingBuffer(5).capacity()).isEqualTo(8);
+    assertThat(new AuditRingBuffer(8).capacity()).isEqualTo(8);
+  }
+
+  @Test
+  void rejectsOffersWhenFullAndAcceptsAgainAfterDrain() {
+    var ring = new AuditRingBuffer(2);
+
+    assertThat(ring.offer(1, "GET", "/a", 200, 1, "user")).isTrue();
+    assertThat(ring.offer(2, "GET", "/b", 200, 1, "user")).isTrue();
+    assertThat(ring.offer(3, "GET", "/c", 200, 1, "user")).isFalse();
+
+    List<String> paths = new ArrayList<>();
+    assertThat(ring.drain(entry -> paths.add(entry.path), 10)).isEqualTo(2);
+    assertThat(paths).containsExactly("/a", "/b");
+    assertThat(ring.size()).isZero();
+    assertThat(ring.offer(4, "GET", "/d", 200, 1, "user")).isTrue();
+  }
+
+  @Test
+  void drainsEveryEventPublishedByConcurrentProducers() throws Exception {
+    var ring = new AuditRingBuffer(1024);
+    int producers = 8;
+    int perProducer = 10_000;
+    long[] drained = new long[1];
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+      for (int p = 0; p < producers; p++) {
+        executor.submit(
+            () -> {
+              for (int i = 0; i < perProducer; i++) {
+                while (!ring.offer(i, "GET", "/notes", 200, i, null)) {
+                  Thread.onSpinWait();
+                }
+              }
+            });
+      }
+      while (drained[0] < (long) producers * perProducer) {
+        drained[0] += ring.drain(entry -> {}, 256);
+      }
+    }
+
+    assertThat(drained[0]).isEqualTo((long) producers * perProducer);
+    assertThat(ring.size()).isZero();
+  }
+}
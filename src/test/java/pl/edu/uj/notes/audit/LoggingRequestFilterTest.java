@@ -0,0 +1,44 @@
+package pl.edu.uj.notes.audit;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import pl.edu.uj.notes.metrics.RequestMetrics;
+
+class LoggingRequestFilterTest {
+
+  RequestMetrics requestMetrics = mock(RequestMetrics.class);
+
+  @SuppressWarnings("unchecked")
+  LoggingRequestFilter underTest() {
+    ObjectProvider<AuditLog> auditLog = mock(ObjectProvider.class);
+    ObjectProvider<RequestMetrics> metrics = mock(ObjectProvider.class);
+    when(metrics.getIfAvailable()).thenReturn(requestMetrics);
+    return new LoggingRequestFilter(auditLog, metrics);
+  }
+
+  @Test
+  void unhandledExceptionsAreRecordedAsServerErrors() {
+    var request = new MockHttpServletRequest("GET", "/api/v1/notes");
+    FilterChain failing =
+        (req, res) -> {
+          throw new ServletException("boom");
+        };
+
+    assertThatThrownBy(() -> underTest().doFilter(request, new MockHttpServletResponse(), failing))
+        .isInstanceOf(ServletException.class);
+
+    verify(requestMetrics).record(eq("GET"), any(), eq(500), any(), anyLong(), anyLong());
+  }
+}
@@ -0,0 +1,94 @@
+package pl.edu.uj.notes.authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.edu.uj.notes.user.InternalUserService;
+import pl.edu.uj.notes.user.UserEntity;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenServiceTest {
+
+  static final Instant NOW = Instant.parse("2026-01-10T12:00:00Z");
+  static final AccessTokenProperties PROPERTIES =
+      new AccessTokenProperties("test-secret", Duration.ofMinutes(15));
+
+  @Mock InternalUserService userService;
+
+  UserEntity user;
+  AccessTokenService underTest;
+
+  @BeforeEach
+  void setUp() {
+    user = new UserEntity("user", "password").withId("user-id");
+    underTest = new AccessTokenService(userService, PROPERTIES, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void issuedToken_verifiesToUser() {
+    when(userService.getUserById("user-id")).thenReturn(Optional.of(user));
+    var token = underTest.issue(user);
+
+    assertThat(token.tokenType()).isEqualTo("Bearer");
+    assertThat(token.expiresIn()).isEqualTo(900);
+    assertThat(underTest.verify(token.accessToken())).contains(user);
+  }
+
+  @Test
+  void tamperedToken_isRejected() {
+    var token = underTest.issue(user).accessToken();
+    var tampered = token.substring(0, token.length() - 2) + "AA";
+
+    assertThat(underTest.verify(tampered)).isEmpty();
+    assertThat(underTest.verify("not-a-token")).isEmpty();
+  }
+
+  @Test
+  void tokenSignedWithDifferentSecret_isRejected() {
+    var other =
+        new AccessTokenService(
+            userService,
+            new AccessTokenProperties("other-secret", Duration.ofMinutes(15)),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    assertThat(underTest.verify(other.issue(user).accessToken())).isEmpty();
+  }
+
+  @Test
+  void expiredToken_isRejected() {
+    var token = underTest.issue(user).accessToken();
+    var later =
+        new AccessTokenService(
+            userService, PROPERTIES, Clock.fixed(NOW.plus(Duration.ofMinutes(16)), ZoneOffset.UTC));
+
+    assertThat(later.verify(token)).isEmpty();
+  }
+
+  @Test
+  void blockedUser_isRejected() {
+    var token = underTest.issue(user).accessToken();
+    user.setBlocked(true);
+    when(userService.getUserById("user-id")).thenReturn(Optional.of(user));
+
+    assertThat(underTest.verify(token)).isEmpty();
+  }
+
+  @Test
+  void changedCredentials_areRejected() {
+    var token = underTest.issue(user).accessToken();
+    user.setCredentialsVersion(user.getCredentialsVersion() + 1);
+    when(userService.getUserById("user-id")).thenReturn(Optional.of(user));
+
+    assertThat(underTest.verify(token)).isEmpty();
+  }
+}
@@ -6,6 +6,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -113,6 +114,16 @@ class AuthenticationServiceTest {
       assertThat(result).isSameAs(testUser);
       verify(userService).getUserByUsername(USERNAME);
     }
+
+    @Test
+    void whenPrincipalWasLoadedDuringAuthentication_thenReturnsItWithoutLookup() {
+      when(authentication.getPrincipal()).thenReturn(new UserDetailsAdapter(testUser));
+
+      UserEntity result = underTest.fetchCurrentUser();
+
+      assertThat(result).isSameAs(testUser);
+      verifyNoInteractions(userService);
+    }
   }
 
   @Test
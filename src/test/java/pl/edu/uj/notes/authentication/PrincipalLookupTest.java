@@ -0,0 +1,64 @@
+package pl.edu.uj.notes.authentication;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.InternalUserService;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class PrincipalLookupTest {
+
+  static final String USERNAME = "lookup-user";
+  static final String PASSWORD = "password";
+
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+  @MockitoSpyBean InternalUserService internalUserService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    userService.createUser(new CreateUserRequest(USERNAME, PASSWORD));
+    for (int i = 0; i < 3; i++) {
+      mockMvc
+          .perform(
+              post("/api/v1/notes")
+                  .with(httpBasic(USERNAME, PASSWORD))
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(
+                      """
+                      {"title": "Note %d", "content": "Content %d"}
+                      """
+                          .formatted(i, i)))
+          .andExpect(status().isCreated());
+    }
+    clearInvocations(internalUserService);
+  }
+
+  @Test
+  void listingNotesLooksUpTheUserExactlyOnce() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/notes").with(httpBasic(USERNAME, PASSWORD)))
+        .andExpect(status().isOk());
+
+    verify(internalUserService, times(1)).getUserByUsername(anyString());
+  }
+}
@@ -0,0 +1,99 @@
+package pl.edu.uj.notes.authentication;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.user.BlockUserRequest;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class TokenAuthenticationTest {
+
+  static final String USERNAME = "token-user";
+  static final String PASSWORD = "password";
+
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+  @Autowired ObjectMapper objectMapper;
+
+  String userId;
+  String bearer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    userId = userService.createUser(new CreateUserRequest(USERNAME, PASSWORD));
+    var response =
+        mockMvc
+            .perform(post("/api/v1/auth/token").with(httpBasic(USERNAME, PASSWORD)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    bearer = "Bearer " + objectMapper.readTree(response).get("accessToken").asText();
+  }
+
+  @Test
+  void validToken_authenticatesRequest() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void malformedToken_isUnauthorized() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/notes").header(HttpHeaders.AUTHORIZATION, "Bearer nope"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void token_cannotIssueAnotherToken() throws Exception {
+    mockMvc
+        .perform(post("/api/v1/auth/token").header(HttpHeaders.AUTHORIZATION, bearer))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void blockingUser_revokesTokenImmediately() throws Exception {
+    userService.setUserBlockedStatus(new BlockUserRequest(userId, true));
+
+    mockMvc
+        .perform(get("/api/v1/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void changingPassword_revokesTokenImmediately() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/v1/user/password")
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {"userId": "%s", "oldPassword": "%s", "newPassword": "changed"}
+                    """
+                        .formatted(userId, PASSWORD)))
+        .andExpect(status().isNoContent());
+
+    mockMvc
+        .perform(get("/api/v1/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+        .andExpect(status().isUnauthorized());
+  }
+}
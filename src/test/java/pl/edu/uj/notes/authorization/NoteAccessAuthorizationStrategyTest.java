@@ -91,4 +91,30 @@ class NoteAccessAuthorizationStrategyTest {
           .isInstanceOf(NullPointerException.class);
     }
   }
+
+  @Nested
+  class OwnerRestriction {
+
+    @Test
+    void ownerRestriction_WhenUserIsAdminAndActionIsRead_ThenUnrestricted() {
+      var admin = USER.withId(OWNER_ID).withAdmin(true);
+
+      assertThat(underTest.ownerRestriction(admin, Action.READ)).isEmpty();
+    }
+
+    @Test
+    void ownerRestriction_WhenUserIsAdminAndActionIsWrite_ThenRestrictedToOwnNotes() {
+      var admin = USER.withId(OWNER_ID).withAdmin(true);
+
+      assertThat(underTest.ownerRestriction(admin, Action.WRITE)).contains(OWNER_ID);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Action.class)
+    void ownerRestriction_WhenUserIsRegular_ThenRestrictedToOwnNotes(Action action) {
+      var user = USER.withId(OWNER_ID);
+
+      assertThat(underTest.ownerRestriction(user, action)).contains(OWNER_ID);
+    }
+  }
 }
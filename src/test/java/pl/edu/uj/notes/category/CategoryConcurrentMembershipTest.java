@@ -0,0 +1,106 @@
+package pl.edu.uj.notes.category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+/** Runs without a test transaction so that concurrent adds really commit against each other. */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CategoryConcurrentMembershipTest {
+
+  static final int THREADS = 4;
+
+  @Autowired CategoryService underTest;
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+
+  String username;
+  String noteId;
+  String categoryId;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    username = "concurrent-" + UUID.randomUUID();
+    userService.createUser(new CreateUserRequest(username, "password"));
+    String location =
+        mockMvc
+            .perform(
+                post("/api/v1/notes")
+                    .with(user(username))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        """
+                        {"title": "Shared", "content": "Added by every thread"}
+                        """))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+    noteId = location.substring(location.lastIndexOf('/') + 1);
+
+    authenticate();
+    categoryId = underTest.createCategory(new CreateCategoryRequest("Concurrent"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    underTest.deleteCategory(categoryId);
+    SecurityContextHolder.clearContext();
+  }
+
+  void authenticate() {
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(username, "password"));
+  }
+
+  @Test
+  void concurrentAddsOfTheSameNoteInsertOneMembership() throws Exception {
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<MembershipChangeResult>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  authenticate();
+                  start.await();
+                  return underTest.addNotes(categoryId, List.of(noteId));
+                }));
+      }
+
+      int added = 0;
+      for (Future<MembershipChangeResult> result : results) {
+        added += result.get(30, TimeUnit.SECONDS).added();
+      }
+      assertThat(added).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(underTest.getCategory(categoryId).noteCount()).isEqualTo(1);
+  }
+}
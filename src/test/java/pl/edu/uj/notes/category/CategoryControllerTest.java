@@ -47,16 +47,20 @@ class CategoryControllerTest {
   @WithMockUser
   @Test
   void whenGetCategories_thenReturnsOk() throws Exception {
-    CategoryDTO dto = new CategoryDTO(CATEGORY_ID, CATEGORY_NAME, List.of());
-    when(categoryService.getCategories()).thenReturn(List.of(dto));
+    CategoryDTO dto = new CategoryDTO(CATEGORY_ID, CATEGORY_NAME, List.of(), 0);
+    when(categoryService.getCategories(any())).thenReturn(new CategoryPage(List.of(dto), null));
 
-    mockMvc.perform(get("/api/v1/categories")).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/v1/categories").param("size", "10").param("notesLimit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.categories[0].id").value(CATEGORY_ID));
+    verify(categoryService).getCategories(new CategoryPageRequest(null, 10, 5));
   }
 
   @WithMockUser
   @Test
   void whenGetCategoryById_thenReturnsOk() throws Exception {
-    CategoryDTO dto = new CategoryDTO(CATEGORY_ID, CATEGORY_NAME, List.of());
+    CategoryDTO dto = new CategoryDTO(CATEGORY_ID, CATEGORY_NAME, List.of(), 0);
     when(categoryService.getCategory(CATEGORY_ID)).thenReturn(dto);
 
     mockMvc.perform(get("/api/v1/categories/{id}", CATEGORY_ID)).andExpect(status().isOk());
@@ -0,0 +1,122 @@
+package pl.edu.uj.notes.category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.metrics.QueryCounter;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class CategoryListingTest {
+
+  static final String USERNAME = "category-owner";
+  static final int CATEGORIES = 5;
+  static final int NOTES_PER_CATEGORY = 4;
+
+  @Autowired CategoryService underTest;
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+  @Autowired EntityManager entityManager;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    userService.createUser(new CreateUserRequest(USERNAME, "password"));
+
+    List<List<String>> noteIds = new ArrayList<>();
+    for (int c = 0; c < CATEGORIES; c++) {
+      List<String> categoryNoteIds = new ArrayList<>();
+      for (int n = 0; n < NOTES_PER_CATEGORY; n++) {
+        categoryNoteIds.add(createNote("Note " + c + "-" + n));
+      }
+      noteIds.add(categoryNoteIds);
+    }
+
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(USERNAME, "password"));
+    for (int c = 0; c < CATEGORIES; c++) {
+      String categoryId = underTest.createCategory(new CreateCategoryRequest("Category " + c));
+      underTest.updateCategory(
+          categoryId, new UpdateCategoryRequest("Category " + c, noteIds.get(c)));
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  String createNote(String title) throws Exception {
+    String location =
+        mockMvc
+            .perform(
+                post("/api/v1/notes")
+                    .with(user(USERNAME))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        """
+                        {"title": "%s", "content": "Content of %s"}
+                        """
+                            .formatted(title, title)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+    return location.substring(location.lastIndexOf('/') + 1);
+  }
+
+  @Test
+  void listingUsesConstantNumberOfQueries() {
+    QueryCounter.reset();
+
+    var page = underTest.getCategories(new CategoryPageRequest(null, 50, null));
+
+    assertThat(QueryCounter.current()).isEqualTo(3);
+    assertThat(page.categories()).hasSizeGreaterThanOrEqualTo(CATEGORIES);
+    assertThat(page.categories())
+        .filteredOn(category -> category.name().startsWith("Category "))
+        .allSatisfy(category -> assertThat(category.notes()).hasSize(NOTES_PER_CATEGORY));
+  }
+
+  @Test
+  void limitsNotesPerCategoryButReportsFullCount() {
+    var page = underTest.getCategories(new CategoryPageRequest(null, 50, 2));
+
+    assertThat(page.categories())
+        .filteredOn(category -> category.name().startsWith("Category "))
+        .allSatisfy(
+            category -> {
+              assertThat(category.notes()).hasSize(2);
+              assertThat(category.noteCount()).isEqualTo(NOTES_PER_CATEGORY);
+            });
+  }
+
+  @Test
+  void pagesThroughAllCategories() {
+    List<String> seen = new ArrayList<>();
+    String cursor = null;
+    do {
+      var page = underTest.getCategories(new CategoryPageRequest(cursor, 2, 1));
+      assertThat(page.categories()).hasSizeLessThanOrEqualTo(2);
+      page.categories().forEach(category -> seen.add(category.id()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertThat(seen).doesNotHaveDuplicates().hasSizeGreaterThanOrEqualTo(CATEGORIES);
+  }
+}
@@ -0,0 +1,214 @@
+package pl.edu.uj.notes.category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.category.exception.CategoryNotFoundException;
+import pl.edu.uj.notes.note.NoteDTO;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class CategoryMembershipTest {
+
+  static final String USERNAME = "membership-owner";
+  static final String OTHER_USERNAME = "membership-other";
+
+  @Autowired CategoryService underTest;
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+  @Autowired EntityManager entityManager;
+
+  String firstNoteId;
+  String secondNoteId;
+  String foreignNoteId;
+  String categoryId;
+  String otherCategoryId;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    userService.createUser(new CreateUserRequest(USERNAME, "password"));
+    userService.createUser(new CreateUserRequest(OTHER_USERNAME, "password"));
+    firstNoteId = createNote(USERNAME, "First");
+    secondNoteId = createNote(USERNAME, "Second");
+    foreignNoteId = createNote(OTHER_USERNAME, "Foreign");
+
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(USERNAME, "password"));
+    categoryId = underTest.createCategory(new CreateCategoryRequest("Work"));
+    otherCategoryId = underTest.createCategory(new CreateCategoryRequest("Home"));
+    entityManager.flush();
+  }
+
+  String createNote(String username, String title) throws Exception {
+    String location =
+        mockMvc
+            .perform(
+                post("/api/v1/notes")
+                    .with(user(username))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        """
+                        {"title": "%s", "content": "Content of %s"}
+                        """
+                            .formatted(title, title)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+    return location.substring(location.lastIndexOf('/') + 1);
+  }
+
+  List<String> memberIds(String id) {
+    return underTest.getCategory(id).notes().stream().map(NoteDTO::id).toList();
+  }
+
+  @Test
+  void addingNotesIsIdempotent() {
+    var first = underTest.addNotes(categoryId, List.of(firstNoteId, secondNoteId));
+    var second = underTest.addNotes(categoryId, List.of(firstNoteId, secondNoteId));
+
+    assertThat(first.added()).isEqualTo(2);
+    assertThat(second.added()).isZero();
+    assertThat(memberIds(categoryId)).containsExactlyInAnyOrder(firstNoteId, secondNoteId);
+  }
+
+  @Test
+  void removingNotesDeletesOnlyExistingMemberships() {
+    underTest.addNotes(categoryId, List.of(firstNoteId, secondNoteId));
+
+    var first = underTest.removeNotes(categoryId, List.of(firstNoteId, "missing"));
+    var second = underTest.removeNotes(categoryId, List.of(firstNoteId));
+
+    assertThat(first.removed()).isEqualTo(1);
+    assertThat(second.removed()).isZero();
+    assertThat(memberIds(categoryId)).containsExactly(secondNoteId);
+  }
+
+  @Test
+  void notesOfOtherUsersAreNotAdded() {
+    var result = underTest.addNotes(categoryId, List.of(firstNoteId, foreignNoteId));
+
+    assertThat(result.added()).isEqualTo(1);
+    assertThat(underTest.getCategory(categoryId).noteCount()).isEqualTo(1);
+  }
+
+  @Test
+  void batchedChangesApplyToEveryCategory() {
+    underTest.addNotes(categoryId, List.of(firstNoteId));
+
+    var results =
+        underTest.changeMemberships(
+            List.of(
+                new MembershipChange(categoryId, List.of(secondNoteId), List.of(firstNoteId)),
+                new MembershipChange(otherCategoryId, List.of(firstNoteId, secondNoteId), null)));
+
+    assertThat(results)
+        .containsExactly(
+            new MembershipChangeResult(categoryId, 1, 1),
+            new MembershipChangeResult(otherCategoryId, 2, 0));
+    assertThat(memberIds(categoryId)).containsExactly(secondNoteId);
+    assertThat(memberIds(otherCategoryId)).containsExactlyInAnyOrder(firstNoteId, secondNoteId);
+  }
+
+  @Test
+  void batchedChangesRejectUnknownCategory() {
+    var changes =
+        List.of(
+            new MembershipChange(categoryId, List.of(firstNoteId), null),
+            new MembershipChange("missing", List.of(firstNoteId), null));
+
+    assertThatThrownBy(() -> underTest.changeMemberships(changes))
+        .isInstanceOf(CategoryNotFoundException.class);
+  }
+
+  @Test
+  void updateCategoryWritesOnlyChangedMemberships() {
+    underTest.addNotes(categoryId, List.of(firstNoteId));
+
+    var updated =
+        underTest.updateCategory(
+            categoryId, new UpdateCategoryRequest("Renamed", List.of(secondNoteId)));
+
+    assertThat(updated.name()).isEqualTo("Renamed");
+    assertThat(updated.notes()).extracting(NoteDTO::id).containsExactly(secondNoteId);
+  }
+
+  @Test
+  void membershipEndpointsReportChangedRows() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/categories/{id}/notes", categoryId)
+                .with(user(USERNAME))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {"noteIds": ["%s", "%s"]}
+                    """
+                        .formatted(firstNoteId, secondNoteId)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.added").value(2));
+
+    mockMvc
+        .perform(
+            delete("/api/v1/categories/{id}/notes", categoryId)
+                .with(user(USERNAME))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {"noteIds": ["%s"]}
+                    """
+                        .formatted(firstNoteId)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.removed").value(1));
+
+    mockMvc
+        .perform(
+            patch("/api/v1/categories/notes")
+                .with(user(USERNAME))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {"changes": [
+                      {"categoryId": "%s", "add": ["%s"]},
+                      {"categoryId": "%s", "remove": ["%s"]}
+                    ]}
+                    """
+                        .formatted(otherCategoryId, secondNoteId, categoryId, secondNoteId)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].added").value(1))
+        .andExpect(jsonPath("$[1].removed").value(1));
+  }
+
+  @Test
+  void emptyNoteIdsAreRejected() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/categories/{id}/notes", categoryId)
+                .with(user(USERNAME))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"noteIds\": []}"))
+        .andExpect(status().isBadRequest());
+  }
+}
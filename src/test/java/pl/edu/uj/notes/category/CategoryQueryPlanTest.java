@@ -0,0 +1,85 @@
+package pl.edu.uj.notes.category;
+
+import static pl.edu.uj.notes.queryplan.PlanAllowance.SORT;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import pl.edu.uj.notes.persistence.UuidKeys;
+import pl.edu.uj.notes.queryplan.PlanCase;
+import pl.edu.uj.notes.queryplan.QueryPlanTestSupport;
+
+class CategoryQueryPlanTest extends QueryPlanTestSupport {
+
+  @Autowired CategoryRepository categoryRepository;
+
+  @Override
+  protected Map<String, PlanCase> planCases() {
+    UUID categoryId = UuidKeys.toUuid(dataset.categoryIds().getFirst());
+    List<UUID> noteIds = UuidKeys.toUuids(dataset.noteIds());
+    Map<String, PlanCase> cases = new LinkedHashMap<>();
+
+    cases.put(
+        "CategoryRepository.findAllByOrderByIdAsc",
+        PlanCase.of(() -> categoryRepository.findAllByOrderByIdAsc(Limit.of(51))));
+    cases.put(
+        "CategoryRepository.findAllByIdGreaterThanOrderByIdAsc",
+        PlanCase.of(
+            () ->
+                categoryRepository.findAllByIdGreaterThanOrderByIdAsc(
+                    dataset.categoryIds().getFirst(), Limit.of(51))));
+    // The window functions order each page's memberships, a few dozen rows.
+    cases.put(
+        "CategoryRepository.findMemberships",
+        PlanCase.allowing(
+            Set.of(SORT),
+            () ->
+                categoryRepository.findMemberships(UuidKeys.toUuids(dataset.categoryIds()), 20)));
+    cases.put(
+        "CategoryRepository.findExistingIds",
+        PlanCase.of(() -> categoryRepository.findExistingIds(dataset.categoryIds())));
+    cases.put(
+        "CategoryRepository.addMemberships",
+        PlanCase.of(
+            () ->
+                categoryRepository.addMemberships(
+                    categoryId, noteIds, UuidKeys.toUuid(dataset.ownerId()))));
+    cases.put(
+        "CategoryRepository.mergeMemberships",
+        PlanCase.of(
+            () ->
+                categoryRepository.mergeMemberships(
+                    categoryId, noteIds, UuidKeys.toUuid(dataset.ownerId()))));
+    cases.put(
+        "CategoryRepository.findForUpdateById",
+        PlanCase.of(() -> categoryRepository.findForUpdateById(dataset.categoryIds().getFirst())));
+    cases.put(
+        "CategoryRepository.removeMemberships",
+        PlanCase.of(() -> categoryRepository.removeMemberships(categoryId, noteIds)));
+    cases.put(
+        "CategoryRepository.retainMemberships",
+        PlanCase.of(() -> categoryRepository.retainMemberships(categoryId, noteIds)));
+    cases.put(
+        "CategoryRepository.removeAllMemberships",
+        PlanCase.of(() -> categoryRepository.removeAllMemberships(categoryId)));
+    return cases;
+  }
+
+  @TestFactory
+  Stream<DynamicTest> repositoryQueriesUseIndexes() {
+    return planTests();
+  }
+
+  @Test
+  void everyRepositoryQueryHasAPlanCase() {
+    assertEveryQueryCovered(CategoryRepository.class);
+  }
+}
@@ -3,7 +3,9 @@ package pl.edu.uj.notes.category;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import pl.edu.uj.notes.authentication.SecurityConfig;
 import pl.edu.uj.notes.category.exception.CategoryNotFoundException;
+import pl.edu.uj.notes.note.NoteDTO;
 import pl.edu.uj.notes.note.NoteService;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
@@ -26,6 +29,8 @@ public class CategoryServiceTest {
 
   private static final String CATEGORY_ID = "category-1";
   private static final String CATEGORY_NAME = "Books";
+  private static final NoteDTO NOTE =
+      new NoteDTO("note-1", "Title", "Content", Instant.now(), Instant.now(), false, 0L);
 
   @Nested
   class CreateCategory {
@@ -59,15 +64,40 @@ public class CategoryServiceTest {
       // Given
       Category category = new Category(CATEGORY_NAME);
       category.setId(CATEGORY_ID);
-      when(categoryRepository.findAll()).thenReturn(List.of(category));
-      when(noteService.getNoteDTOs(any())).thenReturn(List.of());
+      when(categoryRepository.findAllByOrderByIdAsc(any())).thenReturn(List.of(category));
+      when(categoryRepository.findMemberships(any(), anyInt()))
+          .thenReturn(List.<Object[]>of(new Object[] {CATEGORY_ID, "note-1", 3L}));
+      when(noteService.getNoteDTOsByIds(any())).thenReturn(Map.of("note-1", NOTE));
 
       // When
-      List<CategoryDTO> result = categoryService.getCategories();
+      CategoryPage result = categoryService.getCategories(CategoryPageRequest.firstPage());
 
       // Then
-      assertEquals(1, result.size());
-      assertEquals(CATEGORY_ID, result.get(0).id());
+      assertEquals(1, result.categories().size());
+      assertEquals(CATEGORY_ID, result.categories().get(0).id());
+      assertEquals(List.of(NOTE), result.categories().get(0).notes());
+      assertEquals(3, result.categories().get(0).noteCount());
+      assertNull(result.nextCursor());
+    }
+
+    @Test
+    void whenMoreCategoriesThanPageSize_thenReturnCursor() {
+      // Given
+      Category first = new Category(CATEGORY_NAME);
+      first.setId("category-1");
+      Category second = new Category(CATEGORY_NAME);
+      second.setId("category-2");
+      when(categoryRepository.findAllByIdGreaterThanOrderByIdAsc(eq("category-0"), any()))
+          .thenReturn(List.of(first, second));
+      when(categoryRepository.findMemberships(any(), anyInt())).thenReturn(List.of());
+
+      // When
+      CategoryPage result =
+          categoryService.getCategories(new CategoryPageRequest("category-0", 1, null));
+
+      // Then
+      assertEquals(1, result.categories().size());
+      assertEquals("category-1", result.nextCursor());
     }
   }
 
@@ -80,7 +110,7 @@ public class CategoryServiceTest {
       Category category = new Category(CATEGORY_NAME);
       category.setId(CATEGORY_ID);
       when(categoryRepository.findById(CATEGORY_ID)).thenReturn(Optional.of(category));
-      when(noteService.getNoteDTOs(any())).thenReturn(List.of());
+      when(categoryRepository.findMemberships(any(), anyInt())).thenReturn(List.of());
 
       // When
       CategoryDTO dto = categoryService.getCategory(CATEGORY_ID);
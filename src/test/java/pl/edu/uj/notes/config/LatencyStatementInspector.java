@@ -0,0 +1,21 @@
+package pl.edu.uj.notes.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/** Delays every SQL statement to stand in for the round trip to a remote database. */
+public class LatencyStatementInspector implements StatementInspector {
+
+  static final String LATENCY_PROPERTY = "benchmark.statementLatencyMillis";
+
+  private final long latencyMillis = Long.getLong(LATENCY_PROPERTY, 5);
+
+  @Override
+  public String inspect(String sql) {
+    try {
+      Thread.sleep(latencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return sql;
+  }
+}
@@ -0,0 +1,184 @@
+package pl.edu.uj.notes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.edu.uj.notes.NotesApplication;
+
+/**
+ * Compares platform-thread and virtual-thread request handling by listing notes at high
+ * concurrency against each mode in turn. Every SQL statement is delayed by {@link
+ * LatencyStatementInspector} so requests spend their time blocked on JDBC as they do in
+ * production. Run with {@code ./gradlew benchmark}; tune with {@code -Dbenchmark.concurrency},
+ * {@code -Dbenchmark.requests}, {@code -Dbenchmark.poolSize} and {@code
+ * -Dbenchmark.statementLatencyMillis}.
+ */
+@Tag("benchmark")
+class ThreadModeBenchmark {
+
+  static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+  static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+  static final int WARMUP_REQUESTS = Integer.getInteger("benchmark.warmupRequests", 2_000);
+  static final int POOL_SIZE = Integer.getInteger("benchmark.poolSize", 400);
+
+  final ObjectMapper objectMapper = new ObjectMapper();
+  final HttpClient client =
+      HttpClient.newBuilder()
+          .executor(Executors.newVirtualThreadPerTaskExecutor())
+          .connectTimeout(Duration.ofSeconds(10))
+          .build();
+
+  @Test
+  void compareThreadModes() throws Exception {
+    Result platform = run(false);
+    Result virtual = run(true);
+
+    System.out.printf(
+        "%nconcurrency=%d requests=%d pool=%d statementLatency=%dms tomcatThreads=200%n",
+        CONCURRENCY,
+        REQUESTS,
+        POOL_SIZE,
+        Long.getLong(LatencyStatementInspector.LATENCY_PROPERTY, 5));
+    System.out.println(platform.describe("platform"));
+    System.out.println(virtual.describe("virtual"));
+
+    assertThat(platform.failures()).isZero();
+    assertThat(virtual.failures()).isZero();
+  }
+
+  Result run(boolean virtualThreads) throws Exception {
+    try (ConfigurableApplicationContext context = start(virtualThreads)) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      URI notes = URI.create("http://localhost:" + port + "/api/v1/notes");
+      String bearer = login(port);
+
+      load(notes, bearer, WARMUP_REQUESTS);
+      return load(notes, bearer, REQUESTS);
+    }
+  }
+
+  ConfigurableApplicationContext start(boolean virtualThreads) {
+    return new SpringApplicationBuilder(NotesApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.threads.virtual.enabled=" + virtualThreads,
+            "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+            "spring.datasource.hikari.connection-timeout=60000",
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + LatencyStatementInspector.class.getName(),
+            "notes.threads.pinning.enabled=false",
+            "notes.audit.file=" + Path.of(System.getProperty("java.io.tmpdir"), "audit.log"))
+        .run();
+  }
+
+  String login(int port) throws Exception {
+    String base = "http://localhost:" + port + "/api/v1";
+    send(
+        HttpRequest.newBuilder(URI.create(base + "/user"))
+            .header("Content-Type", "application/json")
+            .POST(
+                HttpRequest.BodyPublishers.ofString(
+                    "{\"username\": \"benchmark\", \"password\": \"password\"}"))
+            .build());
+
+    String basic =
+        Base64.getEncoder().encodeToString("benchmark:password".getBytes(StandardCharsets.UTF_8));
+    String token =
+        send(
+            HttpRequest.newBuilder(URI.create(base + "/auth/token"))
+                .header("Authorization", "Basic " + basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+    String bearer = "Bearer " + objectMapper.readTree(token).get("accessToken").asText();
+
+    for (int i = 0; i < 20; i++) {
+      send(
+          HttpRequest.newBuilder(URI.create(base + "/notes"))
+              .header("Authorization", bearer)
+              .header("Content-Type", "application/json")
+              .POST(
+                  HttpRequest.BodyPublishers.ofString(
+                      "{\"title\": \"Note %d\", \"content\": \"Content %d\"}".formatted(i, i)))
+              .build());
+    }
+    return bearer;
+  }
+
+  String send(HttpRequest request) throws Exception {
+    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    assertThat(response.statusCode()).as(request.uri().toString()).isLessThan(300);
+    return response.body();
+  }
+
+  Result load(URI uri, String bearer, int requests) throws Exception {
+    HttpRequest request =
+        HttpRequest.newBuilder(uri).header("Authorization", bearer).GET().build();
+    Semaphore inFlight = new Semaphore(CONCURRENCY);
+    AtomicInteger failures = new AtomicInteger();
+    long[] latencies = new long[requests];
+
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < requests; i++) {
+        int index = i;
+        inFlight.acquire();
+        executor.submit(
+            () -> {
+              long sent = System.nanoTime();
+              try {
+                var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                  failures.incrementAndGet();
+                }
+              } catch (Exception e) {
+                failures.incrementAndGet();
+              } finally {
+                latencies[index] = System.nanoTime() - sent;
+                inFlight.release();
+              }
+            });
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    Arrays.sort(latencies);
+    return new Result(requests, failures.get(), elapsed, latencies);
+  }
+
+  record Result(int requests, int failures, long elapsedNanos, long[] sortedLatencies) {
+
+    String describe(String mode) {
+      return "%-8s throughput=%8.1f req/s  p50=%6.1f ms  p99=%7.1f ms  max=%7.1f ms  failures=%d"
+          .formatted(
+              mode,
+              requests / (elapsedNanos / 1e9),
+              percentile(0.50),
+              percentile(0.99),
+              sortedLatencies[sortedLatencies.length - 1] / 1e6,
+              failures);
+    }
+
+    double percentile(double percentile) {
+      int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+  }
+}
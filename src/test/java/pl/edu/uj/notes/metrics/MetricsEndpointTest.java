@@ -0,0 +1,77 @@
+package pl.edu.uj.notes.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.audit.AuditLogStats;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MetricsEndpointTest {
+
+  static final String USERNAME = "metrics-user";
+  static final String PASSWORD = "password";
+
+  @Autowired MockMvc mockMvc;
+  @Autowired UserService userService;
+  @Autowired RequestMetrics requestMetrics;
+
+  @BeforeEach
+  void setUp() {
+    userService.createUser(new CreateUserRequest(USERNAME, PASSWORD));
+  }
+
+  @Test
+  void recordsLatencyAndQueriesPerRouteTemplate() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/notes").with(httpBasic(USERNAME, PASSWORD)))
+        .andExpect(status().isOk());
+    requestMetrics.rotate();
+
+    var listing =
+        requestMetrics.snapshot().stream()
+            .filter(metrics -> metrics.route().equals("/api/v1/notes"))
+            .filter(metrics -> metrics.method().equals("GET"))
+            .filter(metrics -> metrics.userType().equals("user"))
+            .findFirst();
+
+    assertThat(listing).isPresent();
+    assertThat(listing.get().statusClass()).isEqualTo("2xx");
+    assertThat(listing.get().total()).isPositive();
+    assertThat(listing.get().windows().getFirst().queriesMax()).isPositive();
+  }
+
+  @Test
+  void prometheusEndpointIsAdminOnly() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/metrics/prometheus").with(httpBasic(USERNAME, PASSWORD)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void prometheusOutputIncludesAuditCounters() {
+    var audit = new AuditLogStats(true, "DROP", 8, 3, 40, 2, 1, 4, 37, 4096, 0, 0);
+
+    assertThat(PrometheusFormat.write(List.of(), audit))
+        .contains(
+            "notes_audit_events_published_total 40\n",
+            "notes_audit_events_dropped_total 2\n",
+            "notes_audit_events_sampled_out_total 1\n",
+            "notes_audit_producers_blocked_total 4\n",
+            "notes_audit_events_written_total 37\n",
+            "notes_audit_queue_depth 3\n");
+  }
+}
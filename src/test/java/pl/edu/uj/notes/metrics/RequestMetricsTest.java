@@ -0,0 +1,80 @@
+package pl.edu.uj.notes.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import pl.edu.uj.notes.metrics.RequestMetrics.UserType;
+
+class RequestMetricsTest {
+
+  RequestMetrics underTest =
+      new RequestMetrics(
+          new MetricsProperties(
+              true, Duration.ofSeconds(10), List.of(Duration.ofMinutes(1), Duration.ofMinutes(5))));
+
+  @Test
+  void reportsPercentilesPerRouteStatusClassAndUserType() {
+    for (int i = 1; i <= 100; i++) {
+      underTest.record("GET", "/api/v1/notes/{id}", 200, UserType.USER, i * 1_000_000L, 2);
+    }
+    underTest.record("GET", "/api/v1/notes/{id}", 404, UserType.USER, 1_000_000L, 1);
+    underTest.rotate();
+
+    var metrics = underTest.snapshot();
+
+    assertThat(metrics).hasSize(2);
+    var ok = metrics.getFirst();
+    assertThat(ok.statusClass()).isEqualTo("2xx");
+    assertThat(ok.userType()).isEqualTo("user");
+    assertThat(ok.total()).isEqualTo(100);
+
+    var lastMinute = ok.windows().getFirst();
+    assertThat(lastMinute.window()).isEqualTo("PT1M");
+    assertThat(lastMinute.count()).isEqualTo(100);
+    assertThat(lastMinute.p50Millis()).isBetween(49.0, 51.0);
+    assertThat(lastMinute.p99Millis()).isBetween(98.0, 100.0);
+    assertThat(lastMinute.queriesMax()).isEqualTo(2);
+  }
+
+  @Test
+  void dropsSlicesThatFallOutOfWindow() {
+    underTest.record("GET", "/api/v1/notes", 200, UserType.USER, 1_000_000L, 1);
+    for (int i = 0; i < 7; i++) {
+      underTest.rotate();
+    }
+
+    var windows = underTest.snapshot().getFirst().windows();
+
+    assertThat(windows.get(0).count()).isZero();
+    assertThat(windows.get(1).count()).isEqualTo(1);
+  }
+
+  @Test
+  void groupsUnmatchedRequests() {
+    underTest.record("GET", null, 401, UserType.ANONYMOUS, 1_000_000L, 0);
+    underTest.rotate();
+
+    assertThat(underTest.snapshot().getFirst().route()).isEqualTo(RequestMetrics.UNMATCHED_ROUTE);
+  }
+
+  @Test
+  void resolvesUserType() {
+    var anonymous =
+        new AnonymousAuthenticationToken(
+            "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+    var user = UsernamePasswordAuthenticationToken.authenticated("user", null, List.of());
+    var admin =
+        UsernamePasswordAuthenticationToken.authenticated(
+            "admin", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+    assertThat(UserType.of(null)).isEqualTo(UserType.ANONYMOUS);
+    assertThat(UserType.of(anonymous)).isEqualTo(UserType.ANONYMOUS);
+    assertThat(UserType.of(user)).isEqualTo(UserType.USER);
+    assertThat(UserType.of(admin)).isEqualTo(UserType.ADMIN);
+  }
+}
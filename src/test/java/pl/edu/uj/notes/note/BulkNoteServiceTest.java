@@ -0,0 +1,138 @@
+package pl.edu.uj.notes.note;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.note.BulkNoteResult.Status;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@Transactional
+class BulkNoteServiceTest {
+
+  @Autowired BulkNoteService underTest;
+  @Autowired NoteService noteService;
+  @Autowired NoteRepository noteRepository;
+  @Autowired UserService userService;
+  @Autowired SnapshotBlobRepository snapshotBlobRepository;
+  @Autowired EntityManager entityManager;
+
+  String ownNoteId;
+  String foreignNoteId;
+
+  @BeforeEach
+  void setUp() {
+    userService.createUser(new CreateUserRequest("bulk-owner", "password"));
+    userService.createUser(new CreateUserRequest("bulk-other", "password"));
+
+    setCurrentUser("bulk-other");
+    foreignNoteId = noteService.createNote(new CreateNoteRequest("Foreign", "Foreign content"));
+
+    setCurrentUser("bulk-owner");
+    ownNoteId = noteService.createNote(new CreateNoteRequest("Own", "Own content"));
+  }
+
+  void setCurrentUser(String username) {
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(username, "password"));
+  }
+
+  @Test
+  void shouldReportResultForEveryItemInOrder() {
+    String clientId = UUID.randomUUID().toString();
+    var items =
+        List.of(
+            new BulkNoteItem(null, "Server id", "content"),
+            new BulkNoteItem(clientId, "Client id", "content"),
+            new BulkNoteItem(ownNoteId, "Own", "Changed content"),
+            new BulkNoteItem(foreignNoteId, "Stolen", "content"),
+            new BulkNoteItem(clientId, "Again", "content"),
+            new BulkNoteItem("not-a-uuid", "Invalid", "content"));
+
+    var results = underTest.upsert(items);
+
+    assertThat(results)
+        .extracting(BulkNoteResult::status)
+        .containsExactly(
+            Status.CREATED,
+            Status.CREATED,
+            Status.UPDATED,
+            Status.FAILED,
+            Status.FAILED,
+            Status.FAILED);
+    assertThat(results.get(1).id()).isEqualTo(clientId);
+  }
+
+  @Test
+  void shouldPersistCreatedAndUpdatedNotesWithCurrentSnapshot() {
+    String clientId = UUID.randomUUID().toString();
+
+    underTest.upsert(
+        List.of(
+            new BulkNoteItem(clientId, "Client id", "Created content"),
+            new BulkNoteItem(ownNoteId, "Renamed", "Own content")));
+
+    assertThat(noteService.getNote(clientId).content()).isEqualTo("Created content");
+    assertThat(noteService.getNote(ownNoteId).title()).isEqualTo("Renamed");
+  }
+
+  @Test
+  void shouldCountOneBlobReferencePerSnapshotSharingContent() {
+    underTest.upsert(
+        List.of(
+            new BulkNoteItem(null, "First", "Shared content"),
+            new BulkNoteItem(null, "Second", "Shared content"),
+            new BulkNoteItem(ownNoteId, "Own", "Shared content")));
+    entityManager.flush();
+    entityManager.clear();
+
+    assertThat(snapshotBlobRepository.findById(SnapshotBlob.hash("Shared content")))
+        .hasValueSatisfying(blob -> assertThat(blob.getReferenceCount()).isEqualTo(3));
+    assertThat(noteService.getNote(ownNoteId).content()).isEqualTo("Shared content");
+  }
+
+  @Test
+  void shouldFailItemOfNoteWithoutCurrentSnapshot() {
+    entityManager.flush();
+    entityManager
+        .createQuery("update Note n set n.currentSnapshot = null where n.id = :id")
+        .setParameter("id", ownNoteId)
+        .executeUpdate();
+    entityManager.clear();
+
+    var results =
+        underTest.upsert(
+            List.of(
+                new BulkNoteItem(ownNoteId, "Own", "Changed content"),
+                new BulkNoteItem(null, "Created", "content")));
+
+    assertThat(results)
+        .extracting(BulkNoteResult::status)
+        .containsExactly(Status.FAILED, Status.CREATED);
+  }
+
+  @Test
+  void shouldLeaveUnchangedNoteUntouched() {
+    var results = underTest.upsert(List.of(new BulkNoteItem(ownNoteId, "Own", "Own content")));
+
+    assertThat(results).extracting(BulkNoteResult::status).containsExactly(Status.UNCHANGED);
+  }
+
+  @Test
+  void shouldNotModifyNotesOfOtherUsers() {
+    underTest.upsert(List.of(new BulkNoteItem(foreignNoteId, "Stolen", "content")));
+
+    assertThat(noteRepository.findById(foreignNoteId).orElseThrow().getTitle())
+        .isEqualTo("Foreign");
+  }
+}
@@ -2,6 +2,8 @@ package pl.edu.uj.notes.note;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -9,20 +11,24 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.edu.uj.notes.authentication.SecurityConfig;
 import pl.edu.uj.notes.note.exception.NoteNotFoundException;
+import pl.edu.uj.notes.note.exception.NoteVersionMismatchException;
 import pl.edu.uj.notes.user.UserService;
 
 @WebMvcTest(NoteController.class)
@@ -30,8 +36,12 @@ import pl.edu.uj.notes.user.UserService;
 class NoteControllerTest {
 
   static final String NOTE_URI = "/api/v1/notes";
+  static final NoteDTO NOTE =
+      new NoteDTO("noteId", "title", "content", Instant.EPOCH, Instant.EPOCH, false, 3L);
 
   @MockitoBean NoteService noteService;
+  @MockitoBean NoteExportService noteExportService;
+  @MockitoBean BulkNoteService bulkNoteService;
   @MockitoBean UserService userService;
   @Autowired MockMvc mockMvc;
 
@@ -110,7 +120,9 @@ class NoteControllerTest {
             }
             """;
 
-    Mockito.doThrow(new NoteNotFoundException()).when(noteService).deleteNote(deleteNoteRequest);
+    Mockito.doThrow(new NoteNotFoundException())
+        .when(noteService)
+        .deleteNote(deleteNoteRequest, null);
 
     mockMvc
         .perform(delete(NOTE_URI).contentType(MediaType.APPLICATION_JSON).content(request))
@@ -129,7 +141,7 @@ class NoteControllerTest {
             }
             """;
 
-    Mockito.doNothing().when(noteService).deleteNote(new DeleteNoteRequest(id));
+    Mockito.doNothing().when(noteService).deleteNote(new DeleteNoteRequest(id), null);
 
     mockMvc
         .perform(delete(NOTE_URI).contentType(MediaType.APPLICATION_JSON).content(request))
@@ -139,9 +151,36 @@ class NoteControllerTest {
   @Test
   @WithMockUser
   void happyPath_callsToGetNoteById() throws Exception {
+    when(noteService.getNote("noteId")).thenReturn(NOTE);
+
     mockMvc
         .perform(get(NOTE_URI + "/noteId").contentType(MediaType.APPLICATION_JSON))
-        .andExpect(status().isOk());
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+  }
+
+  @Test
+  @WithMockUser
+  void getNote_matchingIfNoneMatch_notModified() throws Exception {
+    when(noteService.getNoteVersion("noteId")).thenReturn(3L);
+
+    mockMvc
+        .perform(get(NOTE_URI + "/noteId").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+        .andExpect(status().isNotModified());
+
+    verify(noteService, never()).getNote(anyString());
+  }
+
+  @Test
+  @WithMockUser
+  void getNote_staleIfNoneMatch_returnsNote() throws Exception {
+    when(noteService.getNoteVersion("noteId")).thenReturn(3L);
+    when(noteService.getNote("noteId")).thenReturn(NOTE);
+
+    mockMvc
+        .perform(get(NOTE_URI + "/noteId").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
   }
 
   @Test
@@ -152,6 +191,61 @@ class NoteControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  @WithMockUser
+  void bulkUpsert_emptyItems_badRequest() throws Exception {
+    var request =
+        """
+            {
+              "items": []
+            }
+            """;
+
+    mockMvc
+        .perform(post(NOTE_URI + "/bulk").contentType(MediaType.APPLICATION_JSON).content(request))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser
+  void bulkUpsert_blankItemTitle_badRequest() throws Exception {
+    var request =
+        """
+            {
+              "items": [{ "title": "", "content": "content" }]
+            }
+            """;
+
+    mockMvc
+        .perform(post(NOTE_URI + "/bulk").contentType(MediaType.APPLICATION_JSON).content(request))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser
+  void happyPath_callsToBulkUpsert() throws Exception {
+    var request =
+        """
+            {
+              "items": [{ "title": "title", "content": "content" }]
+            }
+            """;
+
+    mockMvc
+        .perform(post(NOTE_URI + "/bulk").contentType(MediaType.APPLICATION_JSON).content(request))
+        .andExpect(status().isOk());
+
+    verify(bulkNoteService).upsert(any());
+  }
+
+  @Test
+  @WithMockUser
+  void happyPath_callsToExportNotes() throws Exception {
+    mockMvc.perform(get(NOTE_URI + "/export").param("history", "true")).andExpect(status().isOk());
+
+    verify(noteExportService).export(true, false);
+  }
+
   @Test
   @WithMockUser
   void noteNotFound_statusNotFound() throws Exception {
@@ -176,12 +270,37 @@ class NoteControllerTest {
             }
             """;
 
+      when(noteService.updateNote(any(), any(), any())).thenReturn(NOTE);
+
       mockMvc
           .perform(
               put(NOTE_URI + "/noteId").content(request).contentType(MediaType.APPLICATION_JSON))
           .andExpect(status().isAccepted());
 
-      verify(noteService).updateNote(any(), any());
+      verify(noteService).updateNote(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void staleIfMatch_preconditionFailed() throws Exception {
+      var request =
+          """
+            {
+              "title": "testTitle",
+              "content": "testContent"
+            }
+            """;
+
+      when(noteService.updateNote(any(), any(), eq(2L)))
+          .thenThrow(new NoteVersionMismatchException());
+
+      mockMvc
+          .perform(
+              put(NOTE_URI + "/noteId")
+                  .header(HttpHeaders.IF_MATCH, "\"2\"")
+                  .content(request)
+                  .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isPreconditionFailed());
     }
   }
 
@@ -197,7 +316,7 @@ class NoteControllerTest {
                   NOTE_URI + "/noteId/important"))
           .andExpect(status().isNoContent());
 
-      verify(noteService).markAsImportant("noteId");
+      verify(noteService).markAsImportant("noteId", null);
     }
 
     @Test
@@ -205,7 +324,7 @@ class NoteControllerTest {
     void noteNotFound_returnsNotFound() throws Exception {
       String id = "nonExistingId";
 
-      Mockito.doThrow(new NoteNotFoundException()).when(noteService).markAsImportant(id);
+      Mockito.doThrow(new NoteNotFoundException()).when(noteService).markAsImportant(id, null);
 
       mockMvc
           .perform(
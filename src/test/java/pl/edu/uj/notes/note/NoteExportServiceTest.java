@@ -0,0 +1,92 @@
+package pl.edu.uj.notes.note;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.note.exception.UnauthorizedNoteAccessException;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@Transactional
+class NoteExportServiceTest {
+
+  @Autowired NoteExportService underTest;
+  @Autowired NoteService noteService;
+  @Autowired UserService userService;
+  @Autowired EntityManager entityManager;
+  @Autowired ObjectMapper objectMapper;
+
+  String noteId;
+
+  @BeforeEach
+  void setUp() {
+    userService.createUser(new CreateUserRequest("exporter", "password"));
+    userService.createUser(new CreateUserRequest("other-exporter", "password"));
+
+    setCurrentUser("other-exporter");
+    noteService.createNote(new CreateNoteRequest("Foreign", "Not mine"));
+
+    setCurrentUser("exporter");
+    noteId = noteService.createNote(new CreateNoteRequest("Exported", "First version"));
+    noteService.updateNote(noteId, new CreateNoteRequest("Exported", "Second version"), null);
+    noteService.createNote(new CreateNoteRequest("Another", "Another content"));
+    entityManager.flush();
+  }
+
+  void setCurrentUser(String username) {
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(username, "password"));
+  }
+
+  List<JsonNode> export(boolean includeHistory, boolean allUsers) throws Exception {
+    var output = new ByteArrayOutputStream();
+    underTest.export(includeHistory, allUsers).writeTo(output);
+
+    List<JsonNode> lines = new ArrayList<>();
+    for (String line : output.toString().split("\n")) {
+      lines.add(objectMapper.readTree(line));
+    }
+    return lines;
+  }
+
+  @Test
+  void shouldWriteOneLinePerOwnedNote() throws Exception {
+    var lines = export(false, false);
+
+    assertThat(lines).hasSize(2);
+    assertThat(lines).extracting(line -> line.get("title").asText()).contains("Exported");
+    assertThat(lines).allMatch(line -> !line.has("history"));
+  }
+
+  @Test
+  void shouldIncludeSnapshotHistoryWhenRequested() throws Exception {
+    var lines = export(true, false);
+
+    var exported =
+        lines.stream().filter(line -> line.get("id").asText().equals(noteId)).findFirst();
+    assertThat(lines).hasSize(2);
+    assertThat(exported).isPresent();
+    assertThat(exported.get().get("content").asText()).isEqualTo("Second version");
+    assertThat(exported.get().get("history")).hasSize(2);
+  }
+
+  @Test
+  void shouldRejectExportOfAllUsersForRegularUser() {
+    assertThatThrownBy(() -> underTest.export(false, true))
+        .isInstanceOf(UnauthorizedNoteAccessException.class);
+  }
+}
@@ -0,0 +1,192 @@
+package pl.edu.uj.notes.note;
+
+import static pl.edu.uj.notes.queryplan.PlanAllowance.SEQ_SCAN;
+import static pl.edu.uj.notes.queryplan.PlanAllowance.SORT;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import pl.edu.uj.notes.persistence.UuidKeys;
+import pl.edu.uj.notes.queryplan.PlanCase;
+import pl.edu.uj.notes.queryplan.QueryPlanTestSupport;
+
+class NoteQueryPlanTest extends QueryPlanTestSupport {
+
+  @Autowired NoteRepository noteRepository;
+  @Autowired NoteSnapshotRepository snapshotRepository;
+  @Autowired NoteSearchDocumentRepository searchDocumentRepository;
+  @Autowired SnapshotBlobRepository blobRepository;
+  @Autowired NoteSearchEngine searchEngine;
+
+  @Override
+  protected Map<String, PlanCase> planCases() {
+    String noteId = dataset.noteIds().getFirst();
+    Map<String, PlanCase> cases = new LinkedHashMap<>();
+
+    cases.put(
+        "NoteRepository.findAllByTitleContainingIgnoreCaseAndActiveIsTrue",
+        PlanCase.of(
+            () ->
+                noteRepository.findAllByTitleContainingIgnoreCaseAndActiveIsTrue(
+                    dataset.titleFragment())));
+    cases.put(
+        "NoteRepository.findByActiveAndId",
+        PlanCase.of(() -> noteRepository.findByActiveAndId(true, noteId)));
+    cases.put(
+        "NoteRepository.findByIdAndActiveIsTrue",
+        PlanCase.of(() -> noteRepository.findByIdAndActiveIsTrue(noteId)));
+    cases.put(
+        "NoteRepository.findWithOwnerByIdAndActiveIsTrue",
+        PlanCase.of(() -> noteRepository.findWithOwnerByIdAndActiveIsTrue(noteId)));
+    cases.put(
+        "NoteRepository.findAllWithCurrentSnapshotByIdIn",
+        PlanCase.of(() -> noteRepository.findAllWithCurrentSnapshotByIdIn(dataset.noteIds())));
+    // Full exports read every active note; a hash join over sequential scans is the right plan.
+    cases.put(
+        "NoteRepository.streamAllForExport",
+        PlanCase.allowing(
+            Set.of(SEQ_SCAN, SORT),
+            () -> {
+              try (Stream<Note> notes = noteRepository.streamAllForExport()) {
+                notes.limit(1).forEach(note -> {});
+              }
+            }));
+    cases.put(
+        "NoteRepository.streamByOwnerForExport",
+        PlanCase.of(
+            () -> {
+              try (Stream<Note> notes = noteRepository.streamByOwnerForExport(dataset.ownerId())) {
+                notes.forEach(note -> {});
+              }
+            }));
+
+    // A single note's snapshots live in one partition of note_snapshot.
+    cases.put(
+        "NoteSnapshotRepository.findFirstByNoteIdOrderByCreatedAtDesc",
+        PlanCase.singlePartition(
+            () ->
+                snapshotRepository.findFirstByNoteIdOrderByCreatedAtDesc(
+                    noteRepository.getReferenceById(noteId))));
+    cases.put(
+        "NoteSnapshotRepository.findByNoteIdAndId",
+        PlanCase.singlePartition(
+            () ->
+                snapshotRepository.findByNoteIdAndId(
+                    noteRepository.getReferenceById(noteId), dataset.snapshotId())));
+    cases.put(
+        "NoteSnapshotRepository.findAllByNoteId",
+        PlanCase.singlePartition(
+            () -> snapshotRepository.findAllByNoteId(noteRepository.getReferenceById(noteId))));
+    cases.put(
+        "NoteSnapshotRepository.findAllCurrentByNoteIds",
+        PlanCase.of(() -> snapshotRepository.findAllCurrentByNoteIds(dataset.noteIds())));
+    cases.put(
+        "NoteSnapshotRepository.streamAllForExport",
+        PlanCase.allowing(
+            Set.of(SEQ_SCAN, SORT),
+            () -> {
+              try (Stream<NoteSnapshot> snapshots = snapshotRepository.streamAllForExport()) {
+                snapshots.limit(1).forEach(snapshot -> {});
+              }
+            }));
+    // Sorting one owner's few hundred snapshots by creation time is cheap.
+    cases.put(
+        "NoteSnapshotRepository.streamByOwnerForExport",
+        PlanCase.allowing(
+            Set.of(SORT),
+            () -> {
+              try (Stream<NoteSnapshot> snapshots =
+                  snapshotRepository.streamByOwnerForExport(dataset.ownerId())) {
+                snapshots.forEach(snapshot -> {});
+              }
+            }));
+    // Distinct note ids are sorted out of one run interval's worth of snapshots.
+    cases.put(
+        "NoteSnapshotRepository.findNoteIdsWithSnapshotsCreatedBetween",
+        PlanCase.allowing(
+            Set.of(SORT),
+            () ->
+                snapshotRepository.findNoteIdsWithSnapshotsCreatedBetween(
+                    Instant.now().minus(Duration.ofDays(7)).minus(Duration.ofHours(1)),
+                    Instant.now().minus(Duration.ofDays(7)),
+                    UuidKeys.NIL_ID,
+                    Limit.of(100))));
+    cases.put(
+        "NoteSnapshotRepository.findAllHistoryByNoteIds",
+        PlanCase.allowing(
+            Set.of(SORT), () -> snapshotRepository.findAllHistoryByNoteIds(dataset.noteIds())));
+
+    cases.put(
+        "NoteSearchDocumentRepository.findAllHitsByNoteIds",
+        PlanCase.of(() -> searchDocumentRepository.findAllHitsByNoteIds(dataset.noteIds())));
+    cases.put(
+        "NoteSearchDocumentRepository.updateDocument",
+        PlanCase.of(
+            () ->
+                searchDocumentRepository.updateDocument(
+                    dataset.noteIds().getFirst(), "Title", "Content", Instant.now())));
+
+    cases.put(
+        "SnapshotBlobRepository.adjustReferenceCount",
+        PlanCase.of(() -> blobRepository.adjustReferenceCount(dataset.unreferencedHash(), 1)));
+    cases.put(
+        "SnapshotBlobRepository.upsertReference",
+        PlanCase.of(() -> blobRepository.upsertReference(dataset.unreferencedHash(), "content")));
+    cases.put(
+        "SnapshotBlobRepository.mergeReference",
+        PlanCase.of(() -> blobRepository.mergeReference(dataset.unreferencedHash(), "content")));
+    cases.put(
+        "SnapshotBlobRepository.findUnreferenced",
+        PlanCase.of(() -> blobRepository.findUnreferenced(Limit.of(100))));
+    cases.put(
+        "SnapshotBlobRepository.deleteIfUnreferenced",
+        PlanCase.of(() -> blobRepository.deleteIfUnreferenced(dataset.unreferencedHash())));
+
+    cases.put(
+        "NoteSearchEngine.ownerListing",
+        PlanCase.of(() -> searchEngine.search(listing(dataset.ownerId(), null, null))));
+    cases.put(
+        "NoteSearchEngine.adminListing",
+        PlanCase.of(() -> searchEngine.search(listing(null, null, null))));
+    // Filtered searches sort the matches, bounded by how selective the filter is.
+    cases.put(
+        "NoteSearchEngine.titleFilter",
+        PlanCase.allowing(
+            Set.of(SORT),
+            () -> searchEngine.search(listing(null, dataset.titleFragment(), null))));
+    cases.put(
+        "NoteSearchEngine.fullTextQuery",
+        PlanCase.allowing(
+            Set.of(SORT),
+            () -> searchEngine.search(listing(null, null, dataset.titleFragment()))));
+    return cases;
+  }
+
+  static NoteSearchCriteria listing(String ownerId, String title, String query) {
+    return new NoteSearchCriteria(
+        ownerId, false, title, null, query, null, Sort.Direction.DESC, 21);
+  }
+
+  @TestFactory
+  Stream<DynamicTest> repositoryQueriesUseIndexes() {
+    return planTests();
+  }
+
+  @Test
+  void everyRepositoryQueryHasAPlanCase() {
+    assertEveryQueryCovered(
+        NoteRepository.class,
+        NoteSnapshotRepository.class,
+        NoteSearchDocumentRepository.class,
+        SnapshotBlobRepository.class);
+  }
+}
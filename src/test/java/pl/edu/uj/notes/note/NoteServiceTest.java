@@ -2,7 +2,10 @@ package pl.edu.uj.notes.note;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.domain.Sort.Direction.ASC;
 
+import jakarta.persistence.EntityManager;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,7 +16,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.note.exception.InvalidCursorException;
 import pl.edu.uj.notes.note.exception.NoteNotFoundException;
+import pl.edu.uj.notes.note.exception.NoteVersionMismatchException;
 import pl.edu.uj.notes.note.exception.UnauthorizedNoteAccessException;
 import pl.edu.uj.notes.user.CreateUserRequest;
 import pl.edu.uj.notes.user.UserEntity;
@@ -26,7 +31,14 @@ class NoteServiceTest {
   @Autowired NoteService underTest;
   @Autowired NoteRepository noteRepository;
   @Autowired NoteSnapshotRepository noteSnapshotRepository;
+  @Autowired NoteSearchDocumentRepository searchDocumentRepository;
+  @Autowired SnapshotService snapshotService;
+  @Autowired SnapshotStore snapshotStore;
+  @Autowired SnapshotBlobRepository snapshotBlobRepository;
+  @Autowired NoteCache noteCache;
+  @Autowired SnapshotStorageProperties snapshotStorageProperties;
   @Autowired UserService userService;
+  @Autowired EntityManager entityManager;
 
   UserEntity owner;
   UserEntity otherUser;
@@ -37,6 +49,7 @@ class NoteServiceTest {
 
   @BeforeEach
   void setUp() {
+    searchDocumentRepository.deleteAll();
     noteSnapshotRepository.deleteAll();
     noteRepository.deleteAll();
 
@@ -46,9 +59,10 @@ class NoteServiceTest {
     ownerNote = noteRepository.save(new Note("First Note", owner));
     otherUserNote = noteRepository.save(new Note("Second Note", otherUser).withImportant(true));
 
-    ownerNoteSnapshot = noteSnapshotRepository.save(new NoteSnapshot(ownerNote, "First content"));
-    otherUserNoteSnapshot =
-        noteSnapshotRepository.save(new NoteSnapshot(otherUserNote, "Second content"));
+    ownerNoteSnapshot = snapshotStore.append(ownerNote, "First content");
+    otherUserNoteSnapshot = snapshotStore.append(otherUserNote, "Second content");
+    searchDocumentRepository.save(new NoteSearchDocument(ownerNote, "First content"));
+    searchDocumentRepository.save(new NoteSearchDocument(otherUserNote, "Second content"));
 
     setCurrentUser(owner);
   }
@@ -58,6 +72,12 @@ class NoteServiceTest {
     return new UserEntity(username, password).withId(userId);
   }
 
+  List<NoteDTO> firstPage(String title, String content, Boolean important, String query) {
+    return underTest
+        .getAllNotes(title, content, important, query, NotePageRequest.firstPage())
+        .notes();
+  }
+
   void setCurrentUser(UserEntity user) {
     Authentication auth =
         new UsernamePasswordAuthenticationToken(user.getUsername(), user.getPassword());
@@ -92,6 +112,7 @@ class NoteServiceTest {
           .containsExactly(owner.getId(), owner.getUsername());
       assertThat(savedSnapshot.getContent()).isEqualTo("New Content");
       assertThat(savedSnapshot.getNoteId()).isEqualTo(savedNote);
+      assertThat(savedNote.getCurrentSnapshot()).isEqualTo(savedSnapshot);
     }
   }
 
@@ -101,7 +122,7 @@ class NoteServiceTest {
     @Test
     void shouldThrowWhenUpdatingWithNullRequest() {
       setCurrentUser(owner);
-      assertThatThrownBy(() -> underTest.updateNote(ownerNote.getId(), null))
+      assertThatThrownBy(() -> underTest.updateNote(ownerNote.getId(), null, null))
           .isInstanceOf(NullPointerException.class);
     }
 
@@ -109,7 +130,7 @@ class NoteServiceTest {
     void shouldThrowWhenUpdatingWithNullId() {
       setCurrentUser(owner);
       var request = new CreateNoteRequest("Title", "Content");
-      assertThatThrownBy(() -> underTest.updateNote(null, request))
+      assertThatThrownBy(() -> underTest.updateNote(null, request, null))
           .isInstanceOf(NullPointerException.class);
     }
 
@@ -118,7 +139,7 @@ class NoteServiceTest {
       setCurrentUser(owner);
       var request = new CreateNoteRequest("Updated Title", ownerNoteSnapshot.getContent());
 
-      var result = underTest.updateNote(ownerNote.getId(), request);
+      var result = underTest.updateNote(ownerNote.getId(), request, null);
 
       assertThat(result.title()).isEqualTo("Updated Title");
       assertThat(result.content()).isEqualTo(ownerNoteSnapshot.getContent());
@@ -132,13 +153,81 @@ class NoteServiceTest {
       setCurrentUser(owner);
       var request = new CreateNoteRequest(ownerNote.getTitle(), "Updated content");
 
-      var result = underTest.updateNote(ownerNote.getId(), request);
+      var result = underTest.updateNote(ownerNote.getId(), request, null);
 
       assertThat(result.title()).isEqualTo(ownerNote.getTitle());
       assertThat(result.content()).isEqualTo("Updated content");
 
       var snapshots = noteSnapshotRepository.findFirstByNoteIdOrderByCreatedAtDesc(ownerNote);
       assertThat(snapshots.get().getContent()).isEqualTo("Updated content");
+      var updatedNote = noteRepository.findById(ownerNote.getId()).orElseThrow();
+      assertThat(updatedNote.getCurrentSnapshot().getContent()).isEqualTo("Updated content");
+    }
+
+    @Test
+    void shouldRebuildEveryVersionFromKeyframesAndDeltas() {
+      setCurrentUser(owner);
+      String body = "A reasonably long note body that mostly stays the same, revision ";
+      int revisions = snapshotStorageProperties.keyframeInterval() * 2 + 3;
+      for (int i = 0; i < revisions; i++) {
+        underTest.updateNote(
+            ownerNote.getId(), new CreateNoteRequest(ownerNote.getTitle(), body + i), null);
+      }
+
+      var contents =
+          snapshotService.getSnapshotsByNoteId(ownerNote.getId()).stream()
+              .map(SnapshotDTO::content)
+              .toList();
+      var stored = noteSnapshotRepository.findAllByNoteId(ownerNote);
+
+      assertThat(contents).hasSize(revisions + 1).contains("First content", body + 0);
+      assertThat(contents).contains(body + (revisions - 1));
+      assertThat(stored).anyMatch(snapshot -> snapshot.getContent() == null);
+      assertThat(stored)
+          .allMatch(
+              snapshot -> snapshot.getChainDepth() < snapshotStorageProperties.keyframeInterval());
+    }
+
+    @Test
+    void shouldShareOneBlobBetweenSnapshotsWithIdenticalContent() {
+      setCurrentUser(owner);
+      String content = "Template body";
+
+      var firstId = underTest.createNote(new CreateNoteRequest("First", content));
+      var secondId = underTest.createNote(new CreateNoteRequest("Second", content));
+      entityManager.flush();
+      entityManager.clear();
+
+      var first = noteRepository.findById(firstId).orElseThrow().getCurrentSnapshot();
+      var second = noteRepository.findById(secondId).orElseThrow().getCurrentSnapshot();
+      assertThat(first.getContentHash()).isEqualTo(second.getContentHash());
+      assertThat(snapshotBlobRepository.findById(first.getContentHash()))
+          .hasValueSatisfying(blob -> assertThat(blob.getReferenceCount()).isEqualTo(2));
+    }
+
+    @Test
+    void shouldBumpVersionWhenNoteChanges() {
+      setCurrentUser(owner);
+      long version = underTest.getNoteVersion(ownerNote.getId());
+
+      var result =
+          underTest.updateNote(
+              ownerNote.getId(), new CreateNoteRequest("Versioned", "Versioned content"), version);
+
+      assertThat(result.version()).isGreaterThan(version);
+      assertThat(underTest.getNoteVersion(ownerNote.getId())).isEqualTo(result.version());
+    }
+
+    @Test
+    void shouldRejectUpdateWithStaleVersion() {
+      setCurrentUser(owner);
+      long version = underTest.getNoteVersion(ownerNote.getId());
+      underTest.updateNote(
+          ownerNote.getId(), new CreateNoteRequest("Newer", "Newer content"), null);
+      var request = new CreateNoteRequest("Stale", "Stale content");
+
+      assertThatThrownBy(() -> underTest.updateNote(ownerNote.getId(), request, version))
+          .isInstanceOf(NoteVersionMismatchException.class);
     }
 
     @Test
@@ -146,7 +235,7 @@ class NoteServiceTest {
       setCurrentUser(owner);
       var request = new CreateNoteRequest("Title", "Content");
 
-      assertThatThrownBy(() -> underTest.updateNote("non-existent", request))
+      assertThatThrownBy(() -> underTest.updateNote("non-existent", request, null))
           .isInstanceOf(NoteNotFoundException.class);
     }
 
@@ -155,7 +244,7 @@ class NoteServiceTest {
       setCurrentUser(otherUser);
       var request = new CreateNoteRequest("Title", "Content");
 
-      assertThatThrownBy(() -> underTest.updateNote(ownerNote.getId(), request))
+      assertThatThrownBy(() -> underTest.updateNote(ownerNote.getId(), request, null))
           .isInstanceOf(UnauthorizedNoteAccessException.class);
     }
   }
@@ -166,7 +255,7 @@ class NoteServiceTest {
     @Test
     void shouldMarkNoteAsInactiveWhenDeleting() {
       setCurrentUser(owner);
-      underTest.deleteNote(new DeleteNoteRequest(ownerNote.getId()));
+      underTest.deleteNote(new DeleteNoteRequest(ownerNote.getId()), null);
 
       var deletedNote = noteRepository.findById(ownerNote.getId()).orElseThrow();
       assertThat(deletedNote.isActive()).isFalse();
@@ -175,14 +264,15 @@ class NoteServiceTest {
     @Test
     void shouldThrowNoteNotFoundExceptionWhenDeletingNonExistentNote() {
       setCurrentUser(owner);
-      assertThatThrownBy(() -> underTest.deleteNote(new DeleteNoteRequest("non-existent")))
+      assertThatThrownBy(() -> underTest.deleteNote(new DeleteNoteRequest("non-existent"), null))
           .isInstanceOf(NoteNotFoundException.class);
     }
 
     @Test
     void shouldThrowUnauthorizedNoteAccessExceptionWhenDeletingOthersNote() {
       setCurrentUser(owner);
-      assertThatThrownBy(() -> underTest.deleteNote(new DeleteNoteRequest(otherUserNote.getId())))
+      assertThatThrownBy(
+              () -> underTest.deleteNote(new DeleteNoteRequest(otherUserNote.getId()), null))
           .isInstanceOf(UnauthorizedNoteAccessException.class);
     }
   }
@@ -206,6 +296,31 @@ class NoteServiceTest {
       assertThat(result.content()).isEqualTo(ownerNoteSnapshot.getContent());
     }
 
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+      setCurrentUser(owner);
+      underTest.getNote(ownerNote.getId());
+      long hits = noteCache.stats().hits();
+
+      var result = underTest.getNote(ownerNote.getId());
+
+      assertThat(noteCache.stats().hits()).isEqualTo(hits + 1);
+      assertThat(result.content()).isEqualTo(ownerNoteSnapshot.getContent());
+    }
+
+    @Test
+    void shouldNotServeStaleNoteAfterUpdate() {
+      setCurrentUser(owner);
+      underTest.getNote(ownerNote.getId());
+
+      underTest.updateNote(
+          ownerNote.getId(), new CreateNoteRequest("Fresh", "Fresh content"), null);
+
+      var result = underTest.getNote(ownerNote.getId());
+      assertThat(result.title()).isEqualTo("Fresh");
+      assertThat(result.content()).isEqualTo("Fresh content");
+    }
+
     @Test
     void shouldThrowNoteNotFoundExceptionWhenNoteDoesNotExist() {
       setCurrentUser(owner);
@@ -213,6 +328,17 @@ class NoteServiceTest {
           .isInstanceOf(NoteNotFoundException.class);
     }
 
+    @Test
+    void shouldNotCacheFailedLoads() {
+      setCurrentUser(owner);
+      assertThatThrownBy(() -> underTest.getNote("non-existent"))
+          .isInstanceOf(NoteNotFoundException.class);
+
+      assertThat(noteCache.getIfPresent("non-existent")).isNull();
+      assertThatThrownBy(() -> underTest.getNote("non-existent"))
+          .isInstanceOf(NoteNotFoundException.class);
+    }
+
     @Test
     void shouldThrowUnauthorizedNoteAccessExceptionWhenGettingOthersNote() {
       setCurrentUser(owner);
@@ -227,7 +353,7 @@ class NoteServiceTest {
     @Test
     void shouldReturnOnlyNotesOwnedByCurrentUserWhenNoFiltersApplied() {
       setCurrentUser(owner);
-      var results = underTest.getAllNotes(null, null, null);
+      var results = firstPage(null, null, null, null);
 
       assertThat(results).hasSize(1);
       assertThat(results.get(0).id()).isEqualTo(ownerNote.getId());
@@ -236,7 +362,7 @@ class NoteServiceTest {
     @Test
     void shouldFilterNotesByTitleWhenTitleFilterProvided() {
       setCurrentUser(owner);
-      var results = underTest.getAllNotes("First", null, null);
+      var results = firstPage("First", null, null, null);
 
       assertThat(results).hasSize(1);
       assertThat(results.get(0).id()).isEqualTo(ownerNote.getId());
@@ -245,7 +371,7 @@ class NoteServiceTest {
     @Test
     void shouldFilterNotesByContentWhenContentFilterProvided() {
       setCurrentUser(owner);
-      var results = underTest.getAllNotes(null, "First", null);
+      var results = firstPage(null, "First", null, null);
 
       assertThat(results).hasSize(1);
       assertThat(results.get(0).id()).isEqualTo(ownerNote.getId());
@@ -254,11 +380,123 @@ class NoteServiceTest {
     @Test
     void shouldFilterNotesByImportantFlagWhenImportantFilterTrue() {
       setCurrentUser(otherUser);
-      var results = underTest.getAllNotes(null, null, true);
+      var results = firstPage(null, null, true, null);
 
       assertThat(results).hasSize(1);
       assertThat(results.get(0).id()).isEqualTo(otherUserNote.getId());
     }
+
+    @Test
+    void shouldMatchAllQueryTermsAcrossTitleAndContentWhenQueryProvided() {
+      setCurrentUser(owner);
+      var results = firstPage(null, null, null, "note first");
+
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).content()).isEqualTo(ownerNoteSnapshot.getContent());
+    }
+
+    @Test
+    void shouldReturnNothingWhenQueryTermIsMissing() {
+      setCurrentUser(owner);
+      var results = firstPage(null, null, null, "first missing");
+
+      assertThat(results).isEmpty();
+    }
+
+    @Test
+    void shouldContinueFromCursorUntilLastPage() {
+      setCurrentUser(owner);
+      underTest.createNote(new CreateNoteRequest("Third Note", "Third content"));
+      underTest.createNote(new CreateNoteRequest("Fourth Note", "Fourth content"));
+      entityManager.flush();
+      entityManager.clear();
+
+      var firstPage =
+          underTest.getAllNotes(null, null, null, null, new NotePageRequest(null, 2, null));
+      var secondPage =
+          underTest.getAllNotes(
+              null, null, null, null, new NotePageRequest(firstPage.nextCursor(), 2, null));
+
+      assertThat(firstPage.notes()).hasSize(2);
+      assertThat(firstPage.nextCursor()).isNotNull();
+      assertThat(secondPage.notes()).hasSize(1);
+      assertThat(secondPage.nextCursor()).isNull();
+      assertThat(secondPage.notes())
+          .extracting(NoteDTO::id)
+          .doesNotContainAnyElementsOf(firstPage.notes().stream().map(NoteDTO::id).toList());
+    }
+
+    @Test
+    void shouldReverseOrderWhenAscending() {
+      setCurrentUser(owner);
+      underTest.createNote(new CreateNoteRequest("Newer Note", "Newer content"));
+      entityManager.flush();
+      entityManager.clear();
+
+      var descending = firstPage(null, null, null, null);
+      var ascending =
+          underTest
+              .getAllNotes(null, null, null, null, new NotePageRequest(null, null, ASC))
+              .notes();
+
+      assertThat(ascending).hasSize(2);
+      assertThat(ascending).containsExactlyElementsOf(descending.reversed());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+      setCurrentUser(owner);
+      var pageRequest = new NotePageRequest("not a cursor", null, null);
+
+      assertThatThrownBy(() -> underTest.getAllNotes(null, null, null, null, pageRequest))
+          .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void shouldFindUpdatedContentWhenNoteWasUpdated() {
+      setCurrentUser(owner);
+      underTest.updateNote(
+          ownerNote.getId(), new CreateNoteRequest("First Note", "Rewritten"), null);
+
+      var results = firstPage(null, "rewritten", null, null);
+
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).content()).isEqualTo("Rewritten");
+    }
+  }
+
+  @Nested
+  class GetNoteDTOs {
+
+    @Test
+    void shouldReturnCurrentContentForEveryNote() {
+      setCurrentUser(owner);
+      var results = underTest.getNoteDTOs(List.of(ownerNote, otherUserNote));
+
+      assertThat(results)
+          .extracting(NoteDTO::content)
+          .containsExactly(ownerNoteSnapshot.getContent(), otherUserNoteSnapshot.getContent());
+    }
+  }
+
+  @Nested
+  class GetNotes {
+
+    @Test
+    void shouldReturnOnlyNotesTheCurrentUserMayRead() {
+      setCurrentUser(owner);
+      var results = underTest.getNotes(List.of(ownerNote.getId(), otherUserNote.getId()));
+
+      assertThat(results).extracting(Note::getId).containsExactly(ownerNote.getId());
+    }
+
+    @Test
+    void shouldReturnEveryRequestedNoteForAdmin() {
+      setCurrentUser(new UserEntity("admin", "password"));
+      var results = underTest.getNotes(List.of(ownerNote.getId(), otherUserNote.getId()));
+
+      assertThat(results).hasSize(2);
+    }
   }
 
   @Nested
@@ -267,14 +505,14 @@ class NoteServiceTest {
     @Test
     void shouldThrowWhenMarkingNoteAsImportantWithNullId() {
       setCurrentUser(owner);
-      assertThatThrownBy(() -> underTest.markAsImportant(null))
+      assertThatThrownBy(() -> underTest.markAsImportant(null, null))
           .isInstanceOf(NullPointerException.class);
     }
 
     @Test
     void shouldSetImportantFlagWhenMarkingNoteAsImportant() {
       setCurrentUser(owner);
-      underTest.markAsImportant(ownerNote.getId());
+      underTest.markAsImportant(ownerNote.getId(), null);
 
       var updatedNote = noteRepository.findById(ownerNote.getId()).orElseThrow();
       assertThat(updatedNote.isImportant()).isTrue();
@@ -283,14 +521,14 @@ class NoteServiceTest {
     @Test
     void shouldThrowUnauthorizedNoteAccessExceptionWhenMarkingOthersNoteAsImportant() {
       setCurrentUser(otherUser);
-      assertThatThrownBy(() -> underTest.markAsImportant(ownerNote.getId()))
+      assertThatThrownBy(() -> underTest.markAsImportant(ownerNote.getId(), null))
           .isInstanceOf(UnauthorizedNoteAccessException.class);
     }
 
     @Test
     void shouldThrowNoteNotFoundExceptionWhenMarkingNonExistentNoteAsImportant() {
       setCurrentUser(owner);
-      assertThatThrownBy(() -> underTest.markAsImportant("non-existent"))
+      assertThatThrownBy(() -> underTest.markAsImportant("non-existent", null))
           .isInstanceOf(NoteNotFoundException.class);
     }
   }
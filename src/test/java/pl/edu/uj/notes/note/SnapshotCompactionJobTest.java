@@ -0,0 +1,123 @@
+package pl.edu.uj.notes.note;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@Transactional
+class SnapshotCompactionJobTest {
+
+  static final Instant NOW = Instant.parse("2026-01-10T12:00:00Z");
+
+  @Autowired SnapshotCompactionJob underTest;
+  @Autowired NoteService noteService;
+  @Autowired SnapshotService snapshotService;
+  @Autowired NoteRepository noteRepository;
+  @Autowired NoteSnapshotRepository snapshotRepository;
+  @Autowired UserService userService;
+  @Autowired EntityManager entityManager;
+
+  String noteId;
+  List<String> snapshotIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    userService.createUser(new CreateUserRequest("compaction-owner", "password"));
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken("compaction-owner", "password"));
+
+    noteId = noteService.createNote(new CreateNoteRequest("Compacted", "Version 0"));
+    snapshotIds.add(currentSnapshotId());
+    for (int i = 1; i < 6; i++) {
+      noteService.updateNote(noteId, new CreateNoteRequest("Compacted", "Version " + i), null);
+      snapshotIds.add(currentSnapshotId());
+    }
+  }
+
+  String currentSnapshotId() {
+    return noteRepository.findById(noteId).orElseThrow().getCurrentSnapshot().getId();
+  }
+
+  void backdateSnapshots(Instant first) {
+    entityManager.flush();
+    for (int i = 0; i < snapshotIds.size(); i++) {
+      entityManager
+          .createQuery("update NoteSnapshot s set s.createdAt = :createdAt where s.id = :id")
+          .setParameter("createdAt", first.plusSeconds(i))
+          .setParameter("id", snapshotIds.get(i))
+          .executeUpdate();
+    }
+    entityManager.clear();
+  }
+
+  @Test
+  void shouldKeepNewestSnapshotPerWindowAndTheCurrentSnapshot() {
+    backdateSnapshots(NOW.minus(Duration.ofDays(3)));
+
+    var report = underTest.compact(null, NOW);
+    entityManager.clear();
+
+    assertThat(report.snapshotsDeleted()).isEqualTo(4);
+    assertThat(report.blobsDeleted()).isPositive();
+    assertThat(report.bytesReclaimed()).isPositive();
+    assertThat(snapshotService.getSnapshotsByNoteId(noteId))
+        .extracting(SnapshotDTO::content)
+        .containsExactlyInAnyOrder("Version 4", "Version 5");
+    assertThat(noteService.getNote(noteId).content()).isEqualTo("Version 5");
+  }
+
+  @Test
+  void shouldNeverDeleteTheCurrentSnapshot() {
+    backdateSnapshots(NOW.minus(Duration.ofDays(30)));
+
+    underTest.compact(null, NOW);
+    entityManager.clear();
+
+    assertThat(snapshotRepository.findById(snapshotIds.getLast())).isPresent();
+    assertThat(noteService.getNote(noteId).content()).isEqualTo("Version 5");
+  }
+
+  @Test
+  void shouldCompactNotesWhoseSnapshotsCrossedATierSinceTheLastRun() {
+    backdateSnapshots(NOW.minus(Duration.ofHours(24)).minus(Duration.ofMinutes(30)));
+
+    var report = underTest.compact(NOW.minus(Duration.ofHours(1)), NOW);
+
+    assertThat(report.notesScanned()).isEqualTo(1);
+    assertThat(report.snapshotsDeleted()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldSkipNotesWhoseSnapshotsCrossedTiersBeforeTheLastRun() {
+    backdateSnapshots(NOW.minus(Duration.ofDays(3)));
+
+    var report = underTest.compact(NOW.minus(Duration.ofHours(1)), NOW);
+
+    assertThat(report.notesScanned()).isZero();
+    assertThat(snapshotService.getSnapshotsByNoteId(noteId)).hasSize(6);
+  }
+
+  @Test
+  void shouldKeepEverySnapshotYoungerThanTheFirstTier() {
+    backdateSnapshots(NOW.minus(Duration.ofHours(1)));
+
+    var report = underTest.compact(null, NOW);
+
+    assertThat(report.snapshotsDeleted()).isZero();
+    assertThat(snapshotService.getSnapshotsByNoteId(noteId)).hasSize(6);
+  }
+}
@@ -0,0 +1,60 @@
+package pl.edu.uj.notes.note;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SnapshotDeltaTest {
+
+  static String roundTrip(String base, String target) {
+    String delta = SnapshotDelta.encode(base, target);
+    assertThat(SnapshotDelta.apply(base, delta)).isEqualTo(target);
+    return delta;
+  }
+
+  @Test
+  void identicalBodiesEncodeAnEmptyMiddle() {
+    assertThat(roundTrip("same text", "same text")).isEqualTo("9:0:");
+  }
+
+  @Test
+  void emptyBodiesRoundTrip() {
+    assertThat(roundTrip("", "")).isEqualTo("0:0:");
+    assertThat(roundTrip("", "new text")).isEqualTo("0:0:new text");
+    assertThat(roundTrip("old text", "")).isEqualTo("0:0:");
+  }
+
+  @Test
+  void appendKeepsOnlyThePrefix() {
+    assertThat(roundTrip("Hello", "Hello, world")).isEqualTo("5:0:, world");
+  }
+
+  @Test
+  void prependKeepsOnlyTheSuffix() {
+    assertThat(roundTrip("world", "Hello, world")).isEqualTo("0:5:Hello, ");
+  }
+
+  @Test
+  void middleEditKeepsPrefixAndSuffix() {
+    assertThat(roundTrip("one two three", "one 2 three")).isEqualTo("4:6:2");
+  }
+
+  @Test
+  void middleMayContainTheSeparator() {
+    assertThat(roundTrip("a-b", "a:1:2:b")).isEqualTo("1:1::1:2:");
+  }
+
+  @Test
+  void prefixDoesNotSplitASurrogatePair() {
+    String delta = roundTrip("a\uD83D\uDE00b", "a\uD83D\uDE01b");
+
+    assertThat(delta).isEqualTo("1:1:\uD83D\uDE01");
+  }
+
+  @Test
+  void suffixDoesNotSplitASurrogatePair() {
+    String delta = roundTrip("\uD83D\uDE00!", "\uD83C\uDE00!");
+
+    assertThat(delta).isEqualTo("0:1:\uD83C\uDE00");
+  }
+}
@@ -23,6 +23,7 @@ public class SnapshotServiceTest {
 
   @MockitoBean private NoteRepository noteRepository;
   @MockitoBean private NoteSnapshotRepository snapshotRepository;
+  @MockitoBean private NoteSearchDocumentRepository searchDocumentRepository;
 
   private static final String NOTE_ID = "note-123";
   private static final String SNAPSHOT_ID = "snap-456";
@@ -38,7 +39,7 @@ public class SnapshotServiceTest {
       NoteSnapshot snapshot = new NoteSnapshot();
       snapshot.setId(SNAPSHOT_ID);
       snapshot.setNoteId(note);
-      snapshot.setContent("text");
+      snapshot.setBlob(new SnapshotBlob("text"));
       snapshot.setCreatedAt(Instant.now());
 
       when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(note));
@@ -77,11 +78,11 @@ public class SnapshotServiceTest {
       NoteSnapshot snapshot = new NoteSnapshot();
       snapshot.setId(SNAPSHOT_ID);
       snapshot.setNoteId(note);
-      snapshot.setContent("restored content");
+      snapshot.setBlob(new SnapshotBlob("restored content"));
       snapshot.setCreatedAt(Instant.now());
 
       when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(note));
-      when(snapshotRepository.findById(SNAPSHOT_ID)).thenReturn(Optional.of(snapshot));
+      when(snapshotRepository.findAllByNoteId(note)).thenReturn(List.of(snapshot));
       when(snapshotRepository.save(snapshot)).thenReturn(snapshot);
 
       // When
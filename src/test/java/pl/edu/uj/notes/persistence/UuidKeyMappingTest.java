@@ -0,0 +1,41 @@
+package pl.edu.uj.notes.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import pl.edu.uj.notes.user.CreateUserRequest;
+import pl.edu.uj.notes.user.InternalUserService;
+import pl.edu.uj.notes.user.UserService;
+
+@SpringBootTest
+@Transactional
+class UuidKeyMappingTest {
+
+  @Autowired UserService userService;
+  @Autowired InternalUserService internalUserService;
+
+  @Test
+  void generatedKeysAreUuidV7Strings() {
+    String id = userService.createUser(new CreateUserRequest("uuid-user", "password"));
+
+    assertThat(UUID.fromString(id).version()).isEqualTo(7);
+    assertThat(internalUserService.getUserById(id)).isPresent();
+  }
+
+  @Test
+  void seededAdminKeepsResolvingByItsLegacyId() {
+    var admin = internalUserService.getUserByUsername("admin").orElseThrow();
+
+    assertThat(admin.getId()).isEqualTo(UuidKeys.toUuid("admin").toString());
+    assertThat(internalUserService.getUserById("admin")).contains(admin);
+  }
+
+  @Test
+  void malformedIdMatchesNothing() {
+    assertThat(internalUserService.getUserById("not-a-uuid")).isEmpty();
+  }
+}
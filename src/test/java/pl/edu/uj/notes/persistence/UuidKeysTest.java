@@ -0,0 +1,40 @@
+package pl.edu.uj.notes.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class UuidKeysTest {
+
+  @Test
+  void newIdIsVersion7WithRfcVariant() {
+    UUID uuid = UUID.fromString(UuidKeys.newId());
+
+    assertThat(uuid.version()).isEqualTo(7);
+    assertThat(uuid.variant()).isEqualTo(2);
+  }
+
+  @Test
+  void newIdsAreOrderedByCreationTime() {
+    UUID earlier = UuidKeys.newUuidV7(1_700_000_000_000L);
+    UUID later = UuidKeys.newUuidV7(1_700_000_000_001L);
+
+    assertThat(earlier.toString()).isLessThan(later.toString());
+    assertThat(earlier.getMostSignificantBits() >>> 16).isEqualTo(1_700_000_000_000L);
+  }
+
+  @Test
+  void canonicalUuidMapsToItself() {
+    String id = "0192f1c4-7b3a-7cde-8f01-23456789abcd";
+
+    assertThat(UuidKeys.toUuid(id)).hasToString(id);
+  }
+
+  @Test
+  void legacyIdMapsToStableNameBasedUuid() {
+    assertThat(UuidKeys.toUuid("admin")).isEqualTo(UuidKeys.toUuid("admin"));
+    assertThat(UuidKeys.toUuid("admin").version()).isEqualTo(3);
+    assertThat(UuidKeys.toUuid("1-1-1-1-1")).isNotEqualTo(UUID.fromString("1-1-1-1-1"));
+  }
+}
@@ -0,0 +1,491 @@
+package pl.edu.uj.notes.querybudget;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import pl.edu.uj.notes.queryplan.RecordedStatement;
+import pl.edu.uj.notes.queryplan.StatementRecorder;
+
+/**
+ * Holds every REST endpoint to a maximum number of SQL statements per request, counted at the
+ * {@code DataSource} and including the lookup of the authenticated user. The fixture owner has
+ * more notes, snapshots and categories than any read budget allows statements, so a query per row
+ * cannot fit. Write endpoints are measured for the payload used here. The tests run on H2, where
+ * adding category members locks the category first: one statement more than on PostgreSQL.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementRecorder.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryBudgetTest {
+
+  static final int FIXTURE_SIZE = 12;
+  static final String OWNER = "budget-owner";
+  static final String ADMIN = "budget-admin";
+  static final String PASSWORD = "password";
+
+  static final Map<String, Integer> BUDGETS =
+      Map.ofEntries(
+          entry("GET /health", 0),
+          entry("POST /api/v1/auth/token", 1),
+          entry("GET /api/v1/audit/stats", 1),
+          entry("GET /api/v1/metrics", 1),
+          entry("GET /api/v1/metrics/prometheus", 1),
+          entry("POST /api/v1/user", 2),
+          entry("GET /api/v1/user", 2),
+          entry("DELETE /api/v1/user/{id}", 3),
+          entry("PUT /api/v1/user/password", 3),
+          entry("PUT /api/v1/user/block", 3),
+          entry("GET /api/v1/notes", 3),
+          entry("GET /api/v1/notes/{id}", 2),
+          entry("GET /api/v1/notes/export", 2),
+          entry("GET /api/v1/notes/cache/stats", 1),
+          entry("POST /api/v1/notes", 7),
+          entry("POST /api/v1/notes/bulk", 7),
+          entry("PUT /api/v1/notes/{id}", 6),
+          entry("PATCH /api/v1/notes/{id}/important", 3),
+          entry("DELETE /api/v1/notes", 3),
+          entry("GET /api/v1/notes/{noteId}/snapshot", 3),
+          entry("PATCH /api/v1/notes/{noteId}/snapshot/{snapshotId}", 9),
+          entry("GET /api/v1/categories", 4),
+          entry("GET /api/v1/categories/{id}", 4),
+          entry("POST /api/v1/categories", 2),
+          entry("PUT /api/v1/categories/{id}", 8),
+          entry("DELETE /api/v1/categories/{id}", 4),
+          entry("POST /api/v1/categories/{id}/notes", 4),
+          entry("DELETE /api/v1/categories/{id}/notes", 3),
+          entry("PATCH /api/v1/categories/notes", 5));
+
+  @Autowired MockMvc mockMvc;
+  @Autowired ObjectMapper objectMapper;
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  RequestMappingHandlerMapping handlerMapping;
+
+  List<String> noteIds = new ArrayList<>();
+  List<String> categoryIds = new ArrayList<>();
+
+  @BeforeAll
+  void setUp() throws Exception {
+    createUser(OWNER);
+    createUser(ADMIN);
+    jdbcTemplate.update("UPDATE user_entity SET is_admin = TRUE WHERE username = ?", ADMIN);
+
+    for (int i = 0; i < FIXTURE_SIZE; i++) {
+      String noteId = createNote("Budget note " + i);
+      updateNote(noteId, "Budget note " + i, "Second revision of " + i);
+      updateNote(noteId, "Budget note " + i, "Third revision of " + i);
+      noteIds.add(noteId);
+    }
+    for (int i = 0; i < FIXTURE_SIZE; i++) {
+      String categoryId = createCategory("Budget category " + i);
+      fixture(post("/api/v1/categories/{id}/notes", categoryId).content(json(noteIds(noteIds))));
+      categoryIds.add(categoryId);
+    }
+  }
+
+  @Test
+  void everyEndpointHasABudget() {
+    Set<String> endpoints = new TreeSet<>();
+    handlerMapping
+        .getHandlerMethods()
+        .forEach(
+            (mapping, handler) -> {
+              if (handler.getBeanType().getPackageName().startsWith("pl.edu.uj.notes")) {
+                mapping
+                    .getMethodsCondition()
+                    .getMethods()
+                    .forEach(
+                        method ->
+                            mapping
+                                .getPatternValues()
+                                .forEach(pattern -> endpoints.add(method + " " + pattern)));
+              }
+            });
+
+    assertThat(BUDGETS.keySet()).containsAll(endpoints);
+  }
+
+  @Test
+  void health() throws Exception {
+    assertWithinBudget("GET /health", get("/health"));
+  }
+
+  @Test
+  void issueToken() throws Exception {
+    assertWithinBudget("POST /api/v1/auth/token", post("/api/v1/auth/token").with(owner()));
+  }
+
+  @Test
+  void auditStats() throws Exception {
+    assertWithinBudget("GET /api/v1/audit/stats", get("/api/v1/audit/stats").with(admin()));
+  }
+
+  @Test
+  void metrics() throws Exception {
+    assertWithinBudget("GET /api/v1/metrics", get("/api/v1/metrics").with(admin()));
+    assertWithinBudget(
+        "GET /api/v1/metrics/prometheus", get("/api/v1/metrics/prometheus").with(admin()));
+  }
+
+  @Test
+  void registerUser() throws Exception {
+    assertWithinBudget(
+        "POST /api/v1/user",
+        post("/api/v1/user").content(json(Map.of("username", "budget-new", "password", PASSWORD))));
+  }
+
+  @Test
+  void viewUsers() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/user",
+        get("/api/v1/user").with(admin()).content(json(Map.of("idList", List.of()))));
+  }
+
+  @Test
+  void deleteUser() throws Exception {
+    String userId = createUser("budget-deleted");
+
+    assertWithinBudget(
+        "DELETE /api/v1/user/{id}",
+        delete("/api/v1/user/{id}", userId).with(admin()).content(json(Map.of("id", userId))));
+  }
+
+  @Test
+  void updatePassword() throws Exception {
+    String userId = createUser("budget-password");
+
+    assertWithinBudget(
+        "PUT /api/v1/user/password",
+        put("/api/v1/user/password")
+            .with(httpBasic("budget-password", PASSWORD))
+            .content(
+                json(
+                    Map.of("userId", userId, "oldPassword", PASSWORD, "newPassword", "changed"))));
+  }
+
+  @Test
+  void blockUser() throws Exception {
+    String userId = createUser("budget-blocked");
+
+    assertWithinBudget(
+        "PUT /api/v1/user/block",
+        put("/api/v1/user/block")
+            .with(admin())
+            .content(json(Map.of("userId", userId, "block", true))));
+  }
+
+  @Test
+  void listNotes() throws Exception {
+    assertWithinBudget("GET /api/v1/notes", get("/api/v1/notes").param("size", "50").with(owner()));
+  }
+
+  @Test
+  void getNote() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/notes/{id}", get("/api/v1/notes/{id}", noteIds.getFirst()).with(owner()));
+  }
+
+  @Test
+  void exportNotesWithHistory() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/notes/export",
+        get("/api/v1/notes/export").param("history", "true").with(owner()));
+  }
+
+  @Test
+  void cacheStats() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/notes/cache/stats", get("/api/v1/notes/cache/stats").with(admin()));
+  }
+
+  @Test
+  void createNote() throws Exception {
+    assertWithinBudget(
+        "POST /api/v1/notes",
+        post("/api/v1/notes")
+            .with(owner())
+            .content(json(Map.of("title", "Created", "content", "Created content"))));
+  }
+
+  @Test
+  void bulkCreateNotes() throws Exception {
+    List<Map<String, String>> items = new ArrayList<>();
+    for (int i = 0; i < FIXTURE_SIZE; i++) {
+      items.add(Map.of("title", "Bulk " + i, "content", "Bulk content " + i));
+    }
+
+    assertWithinBudget(
+        "POST /api/v1/notes/bulk",
+        post("/api/v1/notes/bulk").with(owner()).content(json(Map.of("items", items))));
+  }
+
+  @Test
+  void bulkUpdateNotes() throws Exception {
+    List<Map<String, String>> items = new ArrayList<>();
+    for (int i = 0; i < FIXTURE_SIZE; i++) {
+      String noteId = createNote("Bulk updated " + i);
+      updateNote(noteId, "Bulk updated " + i, "Second revision of " + i);
+      items.add(
+          Map.of("id", noteId, "title", "Bulk renamed " + i, "content", "Third revision of " + i));
+    }
+
+    assertWithinBudget(
+        "POST /api/v1/notes/bulk",
+        post("/api/v1/notes/bulk").with(owner()).content(json(Map.of("items", items))));
+  }
+
+  @Test
+  void updateNote() throws Exception {
+    String noteId = createNote("Updated");
+
+    assertWithinBudget(
+        "PUT /api/v1/notes/{id}",
+        put("/api/v1/notes/{id}", noteId)
+            .with(owner())
+            .content(json(Map.of("title", "Renamed", "content", "Updated content"))));
+  }
+
+  @Test
+  void markAsImportant() throws Exception {
+    String noteId = createNote("Important");
+
+    assertWithinBudget(
+        "PATCH /api/v1/notes/{id}/important",
+        patch("/api/v1/notes/{id}/important", noteId).with(owner()));
+  }
+
+  @Test
+  void deleteNote() throws Exception {
+    String noteId = createNote("Deleted");
+
+    assertWithinBudget(
+        "DELETE /api/v1/notes",
+        delete("/api/v1/notes").with(owner()).content(json(Map.of("id", noteId))));
+  }
+
+  @Test
+  void listSnapshots() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/notes/{noteId}/snapshot",
+        get("/api/v1/notes/{noteId}/snapshot", noteIds.getFirst()).with(owner()));
+  }
+
+  @Test
+  void restoreSnapshot() throws Exception {
+    String noteId = createNote("Restored");
+    updateNote(noteId, "Restored", "Second revision");
+    updateNote(noteId, "Restored", "Third revision");
+    String snapshotId = null;
+    for (JsonNode snapshot :
+        objectMapper.readTree(
+            fixture(get("/api/v1/notes/{noteId}/snapshot", noteId)).getContentAsString())) {
+      if (snapshot.get("content").asText().equals("Second revision")) {
+        snapshotId = snapshot.get("id").asText();
+      }
+    }
+
+    assertWithinBudget(
+        "PATCH /api/v1/notes/{noteId}/snapshot/{snapshotId}",
+        patch("/api/v1/notes/{noteId}/snapshot/{snapshotId}", noteId, snapshotId).with(owner()));
+  }
+
+  @Test
+  void listCategories() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/categories",
+        get("/api/v1/categories").param("size", "50").param("notesLimit", "50").with(owner()));
+  }
+
+  @Test
+  void getCategory() throws Exception {
+    assertWithinBudget(
+        "GET /api/v1/categories/{id}",
+        get("/api/v1/categories/{id}", categoryIds.getFirst()).with(owner()));
+  }
+
+  @Test
+  void createCategory() throws Exception {
+    assertWithinBudget(
+        "POST /api/v1/categories",
+        post("/api/v1/categories").with(owner()).content(json(Map.of("name", "Created"))));
+  }
+
+  @Test
+  void updateCategory() throws Exception {
+    String categoryId = createCategory("Updated");
+    fixture(post("/api/v1/categories/{id}/notes", categoryId).content(json(noteIds(noteIds))));
+
+    assertWithinBudget(
+        "PUT /api/v1/categories/{id}",
+        put("/api/v1/categories/{id}", categoryId)
+            .with(owner())
+            .content(json(Map.of("name", "Renamed", "noteIds", noteIds.subList(0, 6)))));
+  }
+
+  @Test
+  void deleteCategory() throws Exception {
+    String categoryId = createCategory("Deleted");
+    fixture(post("/api/v1/categories/{id}/notes", categoryId).content(json(noteIds(noteIds))));
+
+    assertWithinBudget(
+        "DELETE /api/v1/categories/{id}",
+        delete("/api/v1/categories/{id}", categoryId).with(owner()));
+  }
+
+  @Test
+  void addAndRemoveCategoryNotes() throws Exception {
+    String categoryId = createCategory("Membership");
+
+    assertWithinBudget(
+        "POST /api/v1/categories/{id}/notes",
+        post("/api/v1/categories/{id}/notes", categoryId)
+            .with(owner())
+            .content(json(noteIds(noteIds))));
+    assertWithinBudget(
+        "DELETE /api/v1/categories/{id}/notes",
+        delete("/api/v1/categories/{id}/notes", categoryId)
+            .with(owner())
+            .content(json(noteIds(noteIds))));
+  }
+
+  @Test
+  void changeMemberships() throws Exception {
+    String first = createCategory("First batch");
+    String second = createCategory("Second batch");
+    fixture(post("/api/v1/categories/{id}/notes", second).content(json(noteIds(noteIds))));
+
+    assertWithinBudget(
+        "PATCH /api/v1/categories/notes",
+        patch("/api/v1/categories/notes")
+            .with(owner())
+            .content(
+                json(
+                    Map.of(
+                        "changes",
+                        List.of(
+                            Map.of("categoryId", first, "add", noteIds),
+                            Map.of("categoryId", second, "remove", noteIds))))));
+  }
+
+  void assertWithinBudget(String endpoint, MockHttpServletRequestBuilder request)
+      throws Exception {
+    int budget = BUDGETS.get(endpoint);
+    request.contentType(MediaType.APPLICATION_JSON);
+
+    StatementRecorder.start();
+    MvcResult result = mockMvc.perform(request).andReturn();
+    if (result.getRequest().isAsyncStarted()) {
+      result.getAsyncResult();
+      result = mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+    List<RecordedStatement> statements = StatementRecorder.stop();
+
+    assertThat(result.getResponse().getStatus()).as(endpoint).isBetween(200, 299);
+    assertThat(statements)
+        .withFailMessage(() -> report(endpoint, budget, statements))
+        .hasSizeLessThanOrEqualTo(budget);
+  }
+
+  static String report(String endpoint, int budget, List<RecordedStatement> statements) {
+    StringBuilder report =
+        new StringBuilder(
+            "%s executed %d statements, budget is %d:%n"
+                .formatted(endpoint, statements.size(), budget));
+    for (int i = 0; i < statements.size(); i++) {
+      report.append("%3d. %s%n".formatted(i + 1, statements.get(i).sql()));
+    }
+    return report.toString();
+  }
+
+  static RequestPostProcessor owner() {
+    return httpBasic(OWNER, PASSWORD);
+  }
+
+  static RequestPostProcessor admin() {
+    return httpBasic(ADMIN, PASSWORD);
+  }
+
+  static Map<String, List<String>> noteIds(List<String> ids) {
+    return Map.of("noteIds", ids);
+  }
+
+  String json(Object body) throws Exception {
+    return objectMapper.writeValueAsString(body);
+  }
+
+  MockHttpServletResponse fixture(
+      MockHttpServletRequestBuilder request) throws Exception {
+    return mockMvc
+        .perform(request.with(user(OWNER)).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().is2xxSuccessful())
+        .andReturn()
+        .getResponse();
+  }
+
+  String createUser(String username) throws Exception {
+    return idFromLocation(
+        mockMvc
+            .perform(
+                post("/api/v1/user")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json(Map.of("username", username, "password", PASSWORD))))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse());
+  }
+
+  String createNote(String title) throws Exception {
+    return idFromLocation(
+        fixture(post("/api/v1/notes").content(json(Map.of("title", title, "content", title)))));
+  }
+
+  void updateNote(String id, String title, String content) throws Exception {
+    fixture(
+        put("/api/v1/notes/{id}", id).content(json(Map.of("title", title, "content", content))));
+  }
+
+  String createCategory(String name) throws Exception {
+    return idFromLocation(fixture(post("/api/v1/categories").content(json(Map.of("name", name)))));
+  }
+
+  static String idFromLocation(MockHttpServletResponse response) {
+    String location = response.getHeader(HttpHeaders.LOCATION);
+    return location.substring(location.lastIndexOf('/') + 1);
+  }
+}
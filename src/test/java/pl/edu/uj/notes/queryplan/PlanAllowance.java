@@ -0,0 +1,7 @@
+package pl.edu.uj.notes.queryplan;
+
+/** Plan shapes a {@link PlanCase} may use deliberately. */
+public enum PlanAllowance {
+  SEQ_SCAN,
+  SORT
+}
@@ -0,0 +1,22 @@
+package pl.edu.uj.notes.queryplan;
+
+import java.util.Set;
+
+/**
+ * Runs one repository query; every statement it executes is checked under {@code EXPLAIN}. A
+ * single-partition case also fails when a statement reads more than one partition of a table.
+ */
+public record PlanCase(Set<PlanAllowance> allowed, boolean singlePartition, Runnable query) {
+
+  public static PlanCase of(Runnable query) {
+    return new PlanCase(Set.of(), false, query);
+  }
+
+  public static PlanCase allowing(Set<PlanAllowance> allowed, Runnable query) {
+    return new PlanCase(allowed, false, query);
+  }
+
+  public static PlanCase singlePartition(Runnable query) {
+    return new PlanCase(Set.of(), true, query);
+  }
+}
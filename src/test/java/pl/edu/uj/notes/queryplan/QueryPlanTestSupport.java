@@ -0,0 +1,187 @@
+package pl.edu.uj.notes.queryplan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Replays every statement a {@link PlanCase} executes under {@code EXPLAIN} with the values it was
+ * bound with, against PostgreSQL loaded with a {@link SyntheticDataset}. A plan fails when it
+ * sequentially scans a table of at least {@value #LARGE_TABLE_ROWS} rows or contains a full
+ * {@code Sort} node, unless the case allows it. Incremental sorts over index-ordered input are
+ * accepted; a partition counts as a table of its own. The schema includes the opt-in {@code
+ * note_snapshot} partitioning, so partition pruning is checked too. Run with {@code ./gradlew
+ * queryPlanTest}; skipped when Docker is unavailable, which the task reports as a warning, or as a
+ * failure on CI.
+ */
+@Tag("query-plans")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "spring.liquibase.change-log=classpath:db/changelog-partitioned.xml")
+@Import(StatementRecorder.class)
+public abstract class QueryPlanTestSupport {
+
+  static final long LARGE_TABLE_ROWS = 10_000;
+
+  @ServiceConnection
+  static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17-alpine");
+
+  static {
+    POSTGRES.start();
+  }
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final Map<String, Double> TABLE_ROWS = new HashMap<>();
+  private static final Map<String, String> PARTITION_PARENTS = new HashMap<>();
+
+  protected static SyntheticDataset dataset;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+  @Autowired TransactionTemplate transactionTemplate;
+
+  @BeforeAll
+  static synchronized void seed(@Autowired JdbcTemplate jdbcTemplate) {
+    if (dataset == null) {
+      dataset = SyntheticDataset.create(jdbcTemplate);
+      jdbcTemplate.query(
+          "SELECT relname, reltuples FROM pg_class WHERE relkind = 'r'",
+          (RowCallbackHandler)
+              row -> TABLE_ROWS.put(row.getString("relname"), row.getDouble("reltuples")));
+      jdbcTemplate.query(
+          """
+          SELECT c.relname, p.relname AS parent FROM pg_inherits i
+          JOIN pg_class c ON c.oid = i.inhrelid
+          JOIN pg_class p ON p.oid = i.inhparent
+          """,
+          (RowCallbackHandler)
+              row -> PARTITION_PARENTS.put(row.getString("relname"), row.getString("parent")));
+    }
+  }
+
+  protected abstract Map<String, PlanCase> planCases();
+
+  protected Stream<DynamicTest> planTests() {
+    return planCases().entrySet().stream()
+        .map(entry -> DynamicTest.dynamicTest(entry.getKey(), () -> assertPlans(entry.getValue())));
+  }
+
+  /** Fails when a query method declared on {@code repositories} has no plan case. */
+  protected void assertEveryQueryCovered(Class<?>... repositories) {
+    Set<String> queries =
+        Arrays.stream(repositories)
+            .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+            .filter(method -> !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+            .map(QueryPlanTestSupport::caseName)
+            .collect(Collectors.toSet());
+
+    assertThat(planCases().keySet()).containsAll(queries);
+  }
+
+  static String caseName(Method method) {
+    return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+  }
+
+  private void assertPlans(PlanCase planCase) {
+    List<RecordedStatement> statements =
+        transactionTemplate.execute(
+            status -> {
+              status.setRollbackOnly();
+              StatementRecorder.start();
+              planCase.query().run();
+              return StatementRecorder.stop();
+            });
+
+    assertThat(statements).as("statements executed").isNotEmpty();
+    for (RecordedStatement statement : statements) {
+      JsonNode plan = explain(statement);
+      assertThat(violations(plan, planCase.allowed()))
+          .as("%s%n%s", statement.sql(), plan.toPrettyString())
+          .isEmpty();
+      if (planCase.singlePartition()) {
+        Map<String, Set<String>> partitions = new HashMap<>();
+        collectPartitions(plan, partitions);
+        assertThat(partitions.values())
+            .as("partitions read by %s%n%s", statement.sql(), plan.toPrettyString())
+            .allSatisfy(scanned -> assertThat(scanned).hasSize(1));
+      }
+    }
+  }
+
+  private JsonNode explain(RecordedStatement statement) {
+    String json =
+        jdbcTemplate.execute(
+            (ConnectionCallback<String>)
+                connection -> {
+                  try (PreparedStatement explain =
+                      connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+                    for (var parameter : statement.parameters().entrySet()) {
+                      explain.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                    try (ResultSet result = explain.executeQuery()) {
+                      result.next();
+                      return result.getString(1);
+                    }
+                  }
+                });
+    try {
+      return OBJECT_MAPPER.readTree(json).get(0).get("Plan");
+    } catch (Exception e) {
+      throw new IllegalStateException("Unreadable plan: " + json, e);
+    }
+  }
+
+  private static void collectPartitions(JsonNode plan, Map<String, Set<String>> partitions) {
+    String relation = plan.path("Relation Name").asText();
+    String parent = PARTITION_PARENTS.get(relation);
+    if (parent != null) {
+      partitions.computeIfAbsent(parent, ignored -> new HashSet<>()).add(relation);
+    }
+    for (JsonNode child : plan.path("Plans")) {
+      collectPartitions(child, partitions);
+    }
+  }
+
+  private static List<String> violations(JsonNode plan, Set<PlanAllowance> allowed) {
+    List<String> violations = new ArrayList<>();
+    String nodeType = plan.path("Node Type").asText();
+    String relation = plan.path("Relation Name").asText();
+    if (nodeType.equals("Seq Scan")
+        && !allowed.contains(PlanAllowance.SEQ_SCAN)
+        && TABLE_ROWS.getOrDefault(relation, 0.0) >= LARGE_TABLE_ROWS) {
+      violations.add("Seq Scan on " + relation);
+    }
+    if (nodeType.equals("Sort") && !allowed.contains(PlanAllowance.SORT)) {
+      violations.add("Sort on " + plan.path("Sort Key"));
+    }
+    for (JsonNode child : plan.path("Plans")) {
+      violations.addAll(violations(child, allowed));
+    }
+    return violations;
+  }
+}
@@ -0,0 +1,6 @@
+package pl.edu.uj.notes.queryplan;
+
+import java.util.Map;
+
+/** A prepared statement as executed, with its bound parameters keyed by JDBC index. */
+public record RecordedStatement(String sql, Map<Integer, Object> parameters) {}
@@ -0,0 +1,115 @@
+package pl.edu.uj.notes.queryplan;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Records every prepared statement executed through the application {@link DataSource} while
+ * recording is on, together with the values bound to it, so the statement can be replayed under
+ * {@code EXPLAIN} with the same parameters. A JDBC batch is recorded once, with the values of its
+ * last row, as it is one round trip to the database.
+ */
+public class StatementRecorder implements BeanPostProcessor {
+
+  private static final List<RecordedStatement> RECORDED = new ArrayList<>();
+  private static volatile boolean recording;
+
+  public static synchronized void start() {
+    RECORDED.clear();
+    recording = true;
+  }
+
+  public static synchronized List<RecordedStatement> stop() {
+    recording = false;
+    return List.copyOf(RECORDED);
+  }
+
+  private static synchronized void record(String sql, Map<Integer, Object> parameters) {
+    if (recording) {
+      RECORDED.add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+    }
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource) {
+      return proxy(DataSource.class, dataSource, StatementRecorder::wrapConnection);
+    }
+    return bean;
+  }
+
+  private static Object wrapConnection(Method method, Object result, Object[] args) {
+    if (result instanceof Connection connection) {
+      return proxy(Connection.class, connection, StatementRecorder::wrapStatement);
+    }
+    return result;
+  }
+
+  private static Object wrapStatement(Method method, Object result, Object[] args) {
+    if (result instanceof PreparedStatement statement
+        && method.getName().equals("prepareStatement")) {
+      return Proxy.newProxyInstance(
+          StatementRecorder.class.getClassLoader(),
+          new Class<?>[] {PreparedStatement.class},
+          new RecordingStatement(statement, (String) args[0]));
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+    return (T)
+        Proxy.newProxyInstance(
+            StatementRecorder.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> wrapper.wrap(method, invoke(target, method, args), args));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private interface ResultWrapper {
+    Object wrap(Method method, Object result, Object[] args);
+  }
+
+  private static final class RecordingStatement implements InvocationHandler {
+
+    private final PreparedStatement target;
+    private final String sql;
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+
+    RecordingStatement(PreparedStatement target, String sql) {
+      this.target = target;
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      boolean binding = name.startsWith("set") && args != null && args.length >= 2;
+      if (binding && args[0] instanceof Integer index) {
+        parameters.put(index, name.equals("setNull") ? null : args[1]);
+      } else if (name.equals("clearParameters")) {
+        parameters.clear();
+      } else if (name.startsWith("execute")) {
+        record(sql, parameters);
+      }
+      return StatementRecorder.invoke(target, method, args);
+    }
+  }
+}
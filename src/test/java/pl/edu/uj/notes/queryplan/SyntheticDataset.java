@@ -0,0 +1,125 @@
+package pl.edu.uj.notes.queryplan;
+
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * A production-shaped dataset: 2,000 users owning 100,000 notes (10% deleted, 5% important), three
+ * snapshots per note with their blobs, search documents and 10,000 categories of ten notes each.
+ * Values the plan cases need as arguments are read back after seeding.
+ */
+public record SyntheticDataset(
+    String ownerId,
+    String ownerUsername,
+    List<String> noteIds,
+    String snapshotId,
+    String titleFragment,
+    List<String> categoryIds,
+    String unreferencedHash) {
+
+  static final String OWNER_USERNAME = "plan-user-1";
+
+  private static final List<String> SEED =
+      List.of(
+          """
+          INSERT INTO user_entity
+            (id, username, password, is_admin, is_blocked, credentials_version)
+          SELECT gen_random_uuid(), 'plan-user-' || g, 'password', false, false, 0
+          FROM generate_series(1, 2000) g
+          """,
+          """
+          INSERT INTO note (id, title, created_at, updated_at, active, important, owner_id, version)
+          SELECT gen_random_uuid(), 'Note ' || g || ' ' || md5(g::text),
+                 now() - make_interval(mins => g), now() - make_interval(secs => g),
+                 g % 10 <> 0, g % 20 = 0, u.id, 0
+          FROM generate_series(1, 100000) g
+          JOIN user_entity u ON u.username = 'plan-user-' || (g % 2000 + 1)
+          """,
+          """
+          INSERT INTO snapshot_blob (hash, content, reference_count, created_at)
+          SELECT encode(sha256(('blob-' || g)::bytea), 'hex'), 'Content ' || g,
+                 CASE WHEN g > 300000 THEN 0 ELSE 1 END, now()
+          FROM generate_series(1, 306000) g
+          """,
+          """
+          INSERT INTO note_snapshot (id, note_id, content_hash, chain_depth, created_at, updated_at)
+          SELECT gen_random_uuid(), n.id,
+                 encode(sha256(('blob-' || ((n.rn - 1) * 3 + v + 1))::bytea), 'hex'), 0,
+                 n.created_at + make_interval(mins => v), n.created_at + make_interval(mins => v)
+          FROM (SELECT id, created_at, row_number() OVER (ORDER BY id) AS rn FROM note) n
+          CROSS JOIN generate_series(0, 2) v
+          """,
+          """
+          UPDATE note n SET current_snapshot_id = s.id
+          FROM (
+            SELECT DISTINCT ON (note_id) id, note_id FROM note_snapshot
+            ORDER BY note_id, created_at DESC
+          ) s
+          WHERE s.note_id = n.id
+          """,
+          """
+          INSERT INTO note_search_document (note_id, title, content, updated_at)
+          SELECT id, title, 'Content of ' || title, updated_at FROM note
+          """,
+          """
+          INSERT INTO category (id, name)
+          SELECT gen_random_uuid(), 'Category ' || g FROM generate_series(1, 10000) g
+          """,
+          """
+          INSERT INTO category_notes (category_id, notes_id)
+          SELECT c.id, n.id
+          FROM (SELECT id, row_number() OVER (ORDER BY id) - 1 AS rn FROM category) c
+          JOIN (SELECT id, row_number() OVER (ORDER BY id) - 1 AS rn FROM note) n
+            ON n.rn % 10000 = c.rn
+          """,
+          "VACUUM ANALYZE");
+
+  static SyntheticDataset create(JdbcTemplate jdbcTemplate) {
+    SEED.forEach(jdbcTemplate::execute);
+
+    String ownerId =
+        jdbcTemplate.queryForObject(
+            "SELECT CAST(id AS varchar) FROM user_entity WHERE username = ?",
+            String.class,
+            OWNER_USERNAME);
+    List<String> noteIds =
+        jdbcTemplate.queryForList(
+            """
+            SELECT CAST(n.id AS varchar) FROM note n
+            JOIN user_entity u ON u.id = n.owner_id
+            WHERE u.username = ? AND n.active
+            ORDER BY n.id LIMIT 3
+            """,
+            String.class,
+            OWNER_USERNAME);
+    String snapshotId =
+        jdbcTemplate.queryForObject(
+            """
+            SELECT CAST(id AS varchar) FROM note_snapshot
+            WHERE note_id = CAST(? AS uuid) ORDER BY created_at LIMIT 1
+            """,
+            String.class,
+            noteIds.getFirst());
+    String title =
+        jdbcTemplate.queryForObject(
+            "SELECT title FROM note WHERE id = CAST(? AS uuid)",
+            String.class,
+            noteIds.getFirst());
+    List<String> categoryIds =
+        jdbcTemplate.queryForList(
+            "SELECT CAST(id AS varchar) FROM category ORDER BY id LIMIT 3", String.class);
+    String unreferencedHash =
+        jdbcTemplate.queryForObject(
+            "SELECT hash FROM snapshot_blob WHERE reference_count <= 0 ORDER BY hash LIMIT 1",
+            String.class);
+
+    return new SyntheticDataset(
+        ownerId,
+        OWNER_USERNAME,
+        noteIds,
+        snapshotId,
+        title.substring(title.length() - 10),
+        categoryIds,
+        unreferencedHash);
+  }
+}
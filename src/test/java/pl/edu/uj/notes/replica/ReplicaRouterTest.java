@@ -0,0 +1,97 @@
+package pl.edu.uj.notes.replica;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaRouterTest {
+
+  static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+  static final Duration MAX_LAG = Duration.ofSeconds(2);
+
+  DataSource primary = mock(DataSource.class);
+  ReplicaNode first = new ReplicaNode("replica-1", mock(DataSource.class));
+  ReplicaNode second = new ReplicaNode("replica-2", mock(DataSource.class));
+  ReplicaRouter underTest =
+      new ReplicaRouter(primary, List.of(first, second), MAX_LAG, Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @AfterEach
+  void tearDown() {
+    ReplicaRouter.clearRequirement();
+  }
+
+  @Test
+  void readsFromReplicasInTurnWhileTheyKeepUp() {
+    first.observe(Lsn.parse("0/200"), Lsn.parse("0/200"), NOW);
+    second.observe(Lsn.parse("0/300"), Lsn.parse("0/200"), NOW);
+
+    assertThat(List.of(underTest.select(NOW, null), underTest.select(NOW, null)))
+        .containsExactlyInAnyOrder(first, second);
+  }
+
+  @Test
+  void fallsBackToPrimaryWhenReplicasLagTooFar() {
+    first.observe(Lsn.parse("0/200"), Lsn.parse("0/200"), NOW.minusSeconds(3));
+    second.observe(Lsn.parse("0/100"), Lsn.parse("0/200"), NOW);
+
+    assertThat(underTest.select(NOW, null)).isNull();
+    assertThat(underTest.select(NOW.minusSeconds(2), null)).isSameAs(first);
+  }
+
+  @Test
+  void readsOnlyFromReplicasThatReplayedTheRequiredPosition() {
+    first.observe(Lsn.parse("0/100"), Lsn.parse("0/100"), NOW);
+    second.observe(Lsn.parse("0/200"), Lsn.parse("0/100"), NOW);
+
+    assertThat(underTest.select(NOW, Lsn.parse("0/200"))).isSameAs(second);
+    assertThat(underTest.select(NOW, Lsn.parse("0/201"))).isNull();
+    assertThat(underTest.select(NOW, Lsn.MAX)).isNull();
+  }
+
+  @Test
+  void requirementOnlyMovesForward() throws SQLException {
+    first.observe(Lsn.parse("0/100"), Lsn.parse("0/100"), NOW);
+    second.markDown();
+    Connection primaryConnection = mock(Connection.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+
+    ReplicaRouter.requireAtLeast(Lsn.parse("0/200"));
+    ReplicaRouter.requireAtLeast(Lsn.parse("0/100"));
+
+    assertThat(underTest.readOnlyDataSource().getConnection()).isSameAs(primaryConnection);
+  }
+
+  @Test
+  void usesPrimaryWhenReplicaConnectionFails() throws SQLException {
+    first.observe(Lsn.parse("0/100"), Lsn.parse("0/100"), NOW);
+    Connection primaryConnection = mock(Connection.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(first.dataSource().getConnection()).thenThrow(new SQLException("refused"));
+
+    assertThat(underTest.readOnlyDataSource().getConnection()).isSameAs(primaryConnection);
+    assertThat(first.isUsable(NOW, MAX_LAG, null)).isFalse();
+  }
+
+  @Test
+  void parsesAndComparesLogSequenceNumbers() {
+    assertThat(Lsn.parse("16/B374D848")).hasToString("16/B374D848");
+    assertThat(Lsn.parse("FFFFFFFF/0")).isGreaterThan(Lsn.parse("1/FFFFFFFF"));
+    assertThat(Lsn.MAX).isGreaterThan(Lsn.parse("FFFFFFFF/FFFFFFFE"));
+
+    for (String invalid : List.of("", "16", "/1", "1/", "-1/0", "1/100000000", "G/0")) {
+      assertThatThrownBy(() -> Lsn.parse(invalid)).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+}
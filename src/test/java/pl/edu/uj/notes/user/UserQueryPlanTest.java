@@ -0,0 +1,38 @@
+package pl.edu.uj.notes.user;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import pl.edu.uj.notes.queryplan.PlanCase;
+import pl.edu.uj.notes.queryplan.QueryPlanTestSupport;
+
+class UserQueryPlanTest extends QueryPlanTestSupport {
+
+  @Autowired UserRepository userRepository;
+
+  @Override
+  protected Map<String, PlanCase> planCases() {
+    Map<String, PlanCase> cases = new LinkedHashMap<>();
+    cases.put(
+        "UserRepository.existsByUsername",
+        PlanCase.of(() -> userRepository.existsByUsername(dataset.ownerUsername())));
+    cases.put(
+        "UserRepository.getUserEntityByUsername",
+        PlanCase.of(() -> userRepository.getUserEntityByUsername(dataset.ownerUsername())));
+    return cases;
+  }
+
+  @TestFactory
+  Stream<DynamicTest> repositoryQueriesUseIndexes() {
+    return planTests();
+  }
+
+  @Test
+  void everyRepositoryQueryHasAPlanCase() {
+    assertEveryQueryCovered(UserRepository.class);
+  }
+}